@@ -1,16 +1,21 @@
 package App;
 
 import Client.Controller.YearController;
+import Client.Model.EventCache;
 import Client.Model.EventList;
 import javafx.application.Application;
 import javafx.stage.Stage;
+import java.io.IOException;
 import java.time.Year;
 
 public class App extends Application {
+    private final EventCache cache = new EventCache(EventCache.CACHE_FILE);
+
     @Override
     public void start(Stage primaryStage) {
-        // Initialize model (singleton instance)
-        EventList.getInstance();
+        // Initialize model (singleton instance) from the offline cache; the year view
+        // brings it up to date with the server in the background
+        cache.load(EventList.getInstance());
         
         // Configure primary stage properties
         primaryStage.setTitle("Calendar System");
@@ -24,6 +29,15 @@ public class App extends Application {
         primaryStage.show();    
     }
 
+    @Override
+    public void stop() {
+        try {
+            cache.save(EventList.getInstance());
+        } catch (IOException e) {
+            System.err.println("Could not save event cache: " + e.getMessage());
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
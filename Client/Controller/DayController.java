@@ -1,7 +1,6 @@
 package Client.Controller;
 
 import Client.Model.EventList;
-import Client.Model.ClientConnection;
 import Client.Model.Event;
 import Client.View.DayView;
 import javafx.stage.Stage;
@@ -33,7 +32,9 @@ public class DayController {
         this.previousView = previousView;
         
         initialize();
+        view.getProgressIndicator().visibleProperty().bind(ServerRequests.busyProperty());
         loadDay();
+        EventList.getInstance().setOnChange(this::refreshView);
         
         stage.setScene(view.getScene());
         view.setWidth((int)stage.getWidth()-10);
@@ -192,21 +193,15 @@ public class DayController {
                     input[3], input[4], input[5], input[6]
                 );
 
-                // Send to server
-                String command = String.format("ADD|%s|%s|%s|%s|%s|%s|%s",
-                    input[0],
-                    startDateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
-                    endDateTime.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
-                    input[3], input[4], input[5], input[6]);
-
-                String response = ClientConnection.getInstance().sendMessage(command);
-                
-                if (!response.startsWith("Error:")) {
-                    EventList.getInstance().add(newEvent);
-                    refreshView();
-                } else {
-                    showAlert("Error", response, AlertType.ERROR);
-                }
+                // Send to server; this also gives the event its id. The change may already
+                // have been pushed back to us, which applyAdded ignores
+                ServerRequests.submit(connection -> connection.addEventAsync(newEvent)).whenComplete((added, ex) -> {
+                    if (ex != null) {
+                        showAlert("Error", ex.getMessage(), AlertType.ERROR);
+                    } else {
+                        EventList.getInstance().applyAdded(added);
+                    }
+                });
             } catch (Exception e) {
                 showAlert("Error", e.getMessage(), AlertType.ERROR);
             }
@@ -214,8 +209,7 @@ public class DayController {
     }
 
     private void handleDeleteEvent() {
-        ArrayList<Event> events = EventList.getInstance().geteventsondate(currentDay);
-        events = EventList.sortList(events);
+        ArrayList<Event> events = EventList.getInstance().geteventsondate(currentDay); // Already sorted
 
         if (events.isEmpty()) {
             showAlert("No Events", "No events scheduled for " + currentDay.format(DateTimeFormatter.ISO_DATE), AlertType.INFORMATION);
@@ -244,22 +238,16 @@ public class DayController {
             
             Optional<ButtonType> confirmResult = confirmDialog.showAndWait();
             if (confirmResult.isPresent() && confirmResult.get() == ButtonType.YES) {
-                try {
-                    String command = String.format("REMOVE|%s|%s",
-                        event.getName(),
-                        event.getStartTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
-
-                    String response = ClientConnection.getInstance().sendMessage(command);
-                    
-                    if (response.startsWith("Event removed successfully")) {
-                        EventList.getInstance().remove(event);
-                        refreshView();
+                ServerRequests.submit(connection -> connection.removeEventAsync(event)).whenComplete((removed, ex) -> {
+                    if (ex != null) {
+                        showAlert("Error", ex.getMessage(), AlertType.ERROR);
+                    } else if (removed.getId() != 0) {
+                        EventList.getInstance().applyRemoved(removed.getId()); // No-op if already pushed
                     } else {
-                        showAlert("Error", response, AlertType.ERROR);
+                        EventList.getInstance().remove(removed);
+                        refreshView();
                     }
-                } catch (Exception e) {
-                    showAlert("Error", e.getMessage(), AlertType.ERROR);
-                }
+                });
             }
         });
     }
@@ -25,6 +25,7 @@ public class MonthController {
         setupSizeBindings();
         loadMonth();
         setupGridInteractions();
+        EventList.getInstance().setOnChange(this::updateEventIndicators);
         
     }
     
@@ -128,9 +129,11 @@ public class MonthController {
 
     // In MonthController.java
 private void updateEventIndicators() {
+    // One pass over the grid's days rather than a lookup per cell
+    int[] counts = EventList.getInstance().eventcountsbetween(calculateDate(0),
+            calculateDate(view.getDateButtons().length - 1));
     for (int i = 0; i < view.getDateButtons().length; i++) {
-        LocalDate date = calculateDate(i);
-        int eventCount = EventList.getInstance().alleventsondate(date).size();
+        int eventCount = counts[i];
         
         if (eventCount == 1) {
             view.getNoteLabels()[i].setText(eventCount + " event");
@@ -0,0 +1,67 @@
+package Client.Controller;
+
+import Client.Model.ClientConnection;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Runs requests to the server without ever making the JavaFX application thread wait on the
+ * network. Connecting, which blocks, is done on a background thread; the request itself is
+ * asynchronous; and the result is handed back on the FX thread, so callbacks chained onto the
+ * returned future can update the model and the views directly.
+ *
+ * The number of requests still outstanding drives the progress indicators in the views.
+ */
+public class ServerRequests {
+    // One thread, so a lost connection is only ever re-established once at a time
+    private static final ExecutorService connector = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "server-connector");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(); // FX thread only
+    private static int outstanding; // FX thread only
+
+    private ServerRequests() {
+    }
+
+    /**
+     * Starts a request. Must be called on the FX thread.
+     * @param request Starts the request on the connection, which is opened first if need be
+     * @return A future completed on the FX thread with the request's result, or with the cause
+     *         of its failure, unwrapped
+     */
+    public static <T> CompletableFuture<T> submit(Function<ClientConnection, CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        busy.set(++outstanding > 0);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return ClientConnection.getInstance();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, connector).thenCompose(request).whenComplete((value, ex) -> Platform.runLater(() -> {
+            busy.set(--outstanding > 0);
+            if (ex == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Tells whether any request is still outstanding, for binding to a progress indicator.
+     * @return A property that is true while a request is outstanding
+     */
+    public static ReadOnlyBooleanProperty busyProperty() {
+        return busy.getReadOnlyProperty();
+    }
+}
@@ -29,6 +29,7 @@ public class WeekController {
         initialize();
         loadWeek();
         show();
+        EventList.getInstance().setOnChange(this::updateEventDisplays);
     }
     
     public static void loadWeek(Stage stage, int year, int month, int day) {
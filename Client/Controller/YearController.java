@@ -2,20 +2,26 @@ package Client.Controller;
 
 import Client.Model.EventList;
 import Client.Model.Event;
+import Client.Model.EventChangeListener;
+import Client.Model.EventPage;
 import Client.Model.ClientConnection;
 import Client.View.YearView;
 import javafx.stage.Stage;
 import javafx.scene.Scene;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 public class YearController {
     private YearView view;
     private Stage stage;
     private Scene scene;
     private int currentYear;
+    private static final int PAGE_SIZE = 1000; // Events per page of the initial load
+    private static final ArrayList<Runnable> heldChanges = new ArrayList<>(); // FX thread only
+    private static boolean holding; // Whether a load is outstanding; FX thread only
+    private static volatile boolean loaded; // Whether the last load succeeded; later changes arrive by push
 
     public static void loadYear(Stage stage, int year) {
         new YearController(stage, year);
@@ -29,6 +35,7 @@ public class YearController {
         initializeScene();
         initializeEventHandlers();
         setupSizeBindings();
+        view.getProgressIndicator().visibleProperty().bind(ServerRequests.busyProperty());
         loadInitialData();
         
         view.getYearLabel().setText(String.valueOf(currentYear));
@@ -74,13 +81,15 @@ public class YearController {
         
         // Server shutdown
         view.getStopButton().setOnAction(e -> {
-            try {
-                String response = ClientConnection.getInstance().sendMessage("STOP");
-                ClientConnection.getInstance().disconnect();
-                Platform.exit();
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
+            ServerRequests.submit(connection -> connection.sendAsync("STOP").thenApply(response -> connection))
+                    .whenComplete((connection, ex) -> {
+                        if (ex != null) {
+                            ex.printStackTrace();
+                            return;
+                        }
+                        connection.disconnect();
+                        Platform.exit();
+                    });
         });
     }
 
@@ -89,40 +98,147 @@ public class YearController {
         view.getYearLabel().setText(String.valueOf(currentYear));
     }
 
+    /**
+     * Brings the timetable up to date whenever the year view is shown without a live subscription
+     * and a completed load: on first start, after the connection has been lost and re-established,
+     * and after a load that failed. The connection subscribes first, so every later change on the
+     * server is pushed and applied in place, and then fetches only the changes since the version
+     * the list already reflects. A list that has never been loaded is loaded as the server's
+     * snapshot file on the binary protocol, and page by page on the text protocol.
+     *
+     * None of this waits on the FX thread. Pushes are held back until the load has been applied,
+     * since a delta that resets the list would otherwise discard changes pushed ahead of it.
+     */
     private void loadInitialData() {
-        try {
-            String csvData = ClientConnection.getInstance().sendMessage("LOAD_CSV");
-            ArrayList<Event> events = new ArrayList<>();
-            
-            for (String line : csvData.split("\n")) {
-                String[] parts = line.split(",");
-                if (parts.length < 7) continue;
-                
-                events.add(new Event(
-                    parts[0].trim(),
-                    LocalDateTime.parse(parts[1].trim()),
-                    LocalDateTime.parse(parts[2].trim()),
-                    parts[3].trim(),
-                    parts[4].trim(),
-                    parts[5].trim(),
-                    parts[6].trim()
-                ));
+        EventList.getInstance().setOnChange(null); // The year view shows no events
+        if (holding) {
+            return; // A load is already on its way
+        }
+        holdChanges();
+        ServerRequests.submit(connection -> !connection.isSubscribed()
+                ? connection.subscribeAsync(pushListener()).thenApply(v -> connection)
+                : CompletableFuture.completedFuture(loaded ? null : connection)
+        ).whenComplete((connection, ex) -> {
+            if (ex != null || connection == null) {
+                releaseChanges();
+                if (ex != null) {
+                    showConnectionError(ex);
+                }
+                return;
             }
-            EventList.getInstance().setArrayList(events);
-        } catch (Exception e) {
-            showConnectionError(e);
+            long version = EventList.getInstance().getVersion();
+            if (version == 0) {
+                if (connection.isBinary()) {
+                    loadSnapshot();
+                } else {
+                    loadPages(EventPage.FIRST, 0);
+                }
+                return;
+            }
+            ServerRequests.submit(c -> c.loadSinceAsync(version)).whenComplete((delta, loadEx) -> {
+                if (loadEx != null) {
+                    showConnectionError(loadEx);
+                } else {
+                    EventList.getInstance().applyDelta(delta);
+                }
+                loaded = loadEx == null;
+                releaseChanges();
+            });
+        });
+    }
+
+    private static EventChangeListener pushListener() {
+        return new EventChangeListener() {
+            @Override
+            public void eventAdded(Event event, long version) {
+                Platform.runLater(() -> onPushed(() -> EventList.getInstance().applyAdded(event, version)));
+            }
+
+            @Override
+            public void eventRemoved(long id, long version) {
+                Platform.runLater(() -> onPushed(() -> EventList.getInstance().applyRemoved(id, version)));
+            }
+        };
+    }
+
+    /**
+     * Applies a pushed change, or keeps it for later while a load is outstanding.
+     */
+    private static void onPushed(Runnable change) {
+        if (holding) {
+            heldChanges.add(change);
+        } else {
+            change.run();
         }
     }
 
-    private void showConnectionError(Exception e) {
-        Platform.runLater(() -> {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Connection Error");
-            alert.setHeaderText("Server Communication Failed");
-            alert.setContentText("Application will exit.\nError: " + e.getMessage());
-            alert.showAndWait();
-            Platform.exit();
-            System.exit(1);
+    private static void holdChanges() {
+        holding = true;
+    }
+
+    private static void releaseChanges() {
+        holding = false;
+        for (Runnable change : heldChanges) {
+            change.run();
+        }
+        heldChanges.clear();
+    }
+
+    /**
+     * Loads the whole timetable as the server's snapshot file, which the server sends straight from
+     * disk. The events are merged in like a page rather than replacing the list.
+     */
+    private void loadSnapshot() {
+        ServerRequests.submit(ClientConnection::loadSnapshotAsync).whenComplete((snapshot, ex) -> {
+            if (ex != null) {
+                showConnectionError(ex);
+            } else {
+                EventList.getInstance().applyPage(new EventPage(snapshot.getAdded(), null, snapshot.getVersion()));
+                EventList.getInstance().setVersion(snapshot.getVersion());
+            }
+            loaded = ex == null;
+            releaseChanges();
+        });
+    }
+
+    /**
+     * Loads the timetable one page at a time, applying each page on the FX thread as it arrives,
+     * so the views fill in while the rest is still loading and no response holds the whole list.
+     * The list takes the first page's version once the last page is in.
+     */
+    private void loadPages(String cursor, long firstVersion) {
+        ServerRequests.submit(c -> c.loadPageAsync(cursor, PAGE_SIZE, null, null)).whenComplete((page, ex) -> {
+            if (ex != null) {
+                showConnectionError(ex);
+                loaded = false;
+                releaseChanges();
+                return;
+            }
+            EventList.getInstance().applyPage(page);
+            long version = firstVersion == 0 ? page.getVersion() : firstVersion;
+            if (page.getNext() != null) {
+                loadPages(page.getNext(), version);
+            } else {
+                EventList.getInstance().setVersion(version);
+                loaded = true;
+                releaseChanges();
+            }
         });
     }
+
+    /**
+     * Reports that the server could not be reached. The client carries on with the list it has,
+     * which after a first start is the offline cache, and tries again the next time the year
+     * view is shown.
+     */
+    private void showConnectionError(Throwable e) {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Connection Error");
+        alert.setHeaderText("Server Communication Failed");
+        alert.setContentText((EventList.getInstance().getVersion() != 0
+                ? "Showing the saved timetable, which may be out of date."
+                : "No timetable is available yet.")
+                + "\nError: " + e.getMessage());
+        alert.show();
+    }
 }
\ No newline at end of file
@@ -1,13 +1,39 @@
 package Client.Model;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * Manages client-side network connections to the server using a singleton pattern.
  * Handles sending messages and receiving responses through a TCP socket connection.
+ *
+ * On connecting, the client asks for the binary protocol described in BinaryCodec and falls back
+ * to the text protocol if the server does not accept it. The typed methods (loadEvents, addEvent,
+ * removeEvent) work with either; sendMessage sends any text command over either.
+ *
+ * Requests are pipelined: the ...Async methods send a request and return at once, and a reader
+ * thread completes each future when its response arrives, so many requests can be in flight on
+ * the one socket. Binary responses are matched to requests by correlation id; text responses
+ * arrive in request order and are matched first-in, first-out. Continuations attached to these
+ * futures without an executor run on the reader thread and must not block. The blocking methods
+ * simply wait for the asynchronous ones.
  */
 public class ClientConnection {
     /** The single instance of ClientConnection */
@@ -18,12 +44,54 @@ public class ClientConnection {
     private PrintWriter out;
     /** Input stream to receive server responses */
     private BufferedReader in;
-    
+    /** Whether the server accepted the binary protocol */
+    private boolean binary;
+    /** Frame codec for the binary protocol, null in text mode; written under sendLock, read by the reader thread */
+    private BinaryCodec codec;
+    /** Raw streams used once the binary protocol is in effect */
+    private InputStream binaryIn;
+    private OutputStream binaryOut;
+    /** Serialises sending, so requests reach the wire in the order they were registered */
+    private final ReentrantLock sendLock = new ReentrantLock();
+    /** Binary requests awaiting their response, by correlation id */
+    private final ConcurrentHashMap<Long, BinaryRequest<?>> pending = new ConcurrentHashMap<>();
+    /** Text requests awaiting their response, oldest first */
+    private final ConcurrentLinkedQueue<TextRequest> textPending = new ConcurrentLinkedQueue<>();
+    /** Last correlation id used; guarded by sendLock */
+    private long lastCorrelation;
+    /** Why the connection stopped, once the reader thread has exited; guarded by sendLock */
+    private IOException closed;
+    /** Receives pushed changes once subscribed, null until then */
+    private volatile EventChangeListener changeListener;
+    /** Splits the rows of pushed additions; used only by the reader thread */
+    private final FieldReader pushedRow = new FieldReader(',');
+
     /** Server IP address for connection */
     private static final String SERVER_ADDRESS = "localhost";
     /** Server port number for connection */
     private static final int SERVER_PORT = 12345;
-    
+    /** Prefix of the response sent when the server's command queue is full */
+    private static final String BUSY = "BUSY|retry-after|";
+    /** Prefix of the response sent when the server refuses a command, followed by the reason */
+    private static final String ERROR = "ERROR: ";
+    /** Line ending a LOAD_CSV response */
+    private static final String END_CSV = "END_CSV";
+    /** Line starting a LOAD_SINCE response whose version the server no longer covers */
+    private static final String RESET = "RESET";
+    /** Prefixes of the lines pushed to a subscribed text protocol connection */
+    private static final String PUSH_ADD = "PUSH|ADD|";
+    private static final String PUSH_REMOVE = "PUSH|REMOVE|";
+    /** Prefix of the line ending a LOAD_SINCE response, followed by the version */
+    private static final String END_SINCE = "END_SINCE|";
+    /** Prefix of the line ending a LOAD_PAGE response, followed by the next cursor and the version */
+    private static final String END_PAGE = "END_PAGE|";
+    /** Next cursor after the last page */
+    private static final String NO_MORE_PAGES = "END";
+    /** Attempts made for a message before a BUSY response is given up on */
+    private static final int MAX_ATTEMPTS = 5;
+    /** Timestamp format of the text protocol's ADD and REMOVE commands */
+    private static final DateTimeFormatter COMMAND_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
     /**
      * Private constructor establishing connection to server.
      * @throws Exception if connection fails or streams can't be initialized
@@ -32,60 +100,744 @@ public class ClientConnection {
         socket = new Socket(SERVER_ADDRESS, SERVER_PORT);
         out = new PrintWriter(socket.getOutputStream(), true);
         in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        negotiate();
+        Thread reader = new Thread(this::readResponses, "server-reader");
+        reader.setDaemon(true);
+        reader.start();
     }
-    
+
+    /**
+     * Asks the server for the binary protocol. Servers that predate it answer with an error,
+     * and the connection stays on the text protocol.
+     */
+    private void negotiate() throws IOException {
+        out.println(BinaryCodec.NEGOTIATE);
+        String reply = in.readLine();
+        if (reply == null) {
+            throw new IOException("Connection closed by server");
+        }
+        if (reply.equals(BinaryCodec.NEGOTIATE)) {
+            // Nothing follows the acceptance until we send a frame, so the reader holds no binary data
+            binary = true;
+            codec = new BinaryCodec();
+            binaryIn = new BufferedInputStream(socket.getInputStream());
+            binaryOut = new BufferedOutputStream(socket.getOutputStream());
+        }
+    }
+
     /**
      * Gets singleton instance of ClientConnection.
      * @return The single ClientConnection instance
      * @throws Exception if initial connection attempt fails
      */
     public static ClientConnection getInstance() throws Exception {
-        if (instance == null) {
-            instance = new ClientConnection();
+        if (instance == null || instance.isClosed()) {
+            instance = new ClientConnection(); // Reconnect after the previous connection was lost
         }
         return instance;
     }
-    
+
+    /**
+     * Checks whether the connection has been lost or closed. A new connection starts out
+     * unsubscribed, so the caller must subscribe again and catch up with loadSince.
+     * @return true once the connection can no longer be used
+     */
+    public boolean isClosed() {
+        sendLock.lock();
+        try {
+            return closed != null;
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether the connection is using the binary protocol.
+     * @return true if the server accepted the binary protocol
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Loads every event from the server.
+     * @return The events, carrying their server-assigned ids
+     * @throws Exception if communication fails or the server reports an error
+     */
+    public ArrayList<Event> loadEvents() throws Exception {
+        return await(loadEventsAsync());
+    }
+
+    /**
+     * Starts loading every event from the server.
+     * @return A future completed with the events, carrying their server-assigned ids
+     */
+    public CompletableFuture<ArrayList<Event>> loadEventsAsync() {
+        if (!binary) {
+            return sendAsync("LOAD_CSV").thenApply(ClientConnection::parseCsv);
+        }
+        ArrayList<Event> events = new ArrayList<>();
+        return binaryRequest(BinaryCodec.OP_LOAD, request -> { }, (opcode, response) -> {
+            if (opcode == BinaryCodec.R_EVENTS) {
+                long count = response.readVarLong();
+                for (long i = 0; i < count; i++) {
+                    events.add(response.readEvent());
+                }
+                return null;
+            }
+            if (opcode != BinaryCodec.R_END) {
+                throw new IOException("Unexpected response to load: " + opcode);
+            }
+            return events;
+        });
+    }
+
+    /**
+     * Loads the changes made on the server since a version, falling back to every event when
+     * the server no longer has all of those changes.
+     * @param version The version the local copy reflects, or 0 to load every event
+     * @return The changes, carrying the version they bring the local copy to
+     * @throws Exception if communication fails or the server reports an error
+     */
+    public EventDelta loadSince(long version) throws Exception {
+        return await(loadSinceAsync(version));
+    }
+
+    /**
+     * Starts loading the changes made on the server since a version.
+     * @param version The version the local copy reflects, or 0 to load every event
+     * @return A future completed with the changes
+     */
+    public CompletableFuture<EventDelta> loadSinceAsync(long version) {
+        if (!binary) {
+            return sendAsync("LOAD_SINCE|" + version).thenApply(ClientConnection::parseDelta);
+        }
+        ArrayList<Event> added = new ArrayList<>();
+        ArrayList<Long> removed = new ArrayList<>();
+        boolean[] reset = new boolean[1];
+        return binaryRequest(BinaryCodec.OP_LOAD_SINCE, request -> request.writeVarLong(version), (opcode, response) -> {
+            switch (opcode) {
+                case BinaryCodec.R_RESET:
+                    reset[0] = true;
+                    return null;
+                case BinaryCodec.R_EVENTS:
+                    for (long i = response.readVarLong(); i > 0; i--) {
+                        added.add(response.readEvent());
+                    }
+                    return null;
+                case BinaryCodec.R_REMOVED_IDS:
+                    for (long i = response.readVarLong(); i > 0; i--) {
+                        removed.add(response.readVarLong());
+                    }
+                    return null;
+                case BinaryCodec.R_END_SINCE:
+                    return new EventDelta(reset[0], added, removed, response.readVarLong());
+                default:
+                    throw new IOException("Unexpected response to load since: " + opcode);
+            }
+        });
+    }
+
+    /**
+     * Starts loading every event as the server's snapshot file, which the server sends without
+     * encoding the events one by one and the client reads as fixed-width records. On the text
+     * protocol, which cannot carry the file, this loads every event with LOAD_SINCE instead.
+     * @return A future completed with a reset holding every event and the version they reflect
+     */
+    public CompletableFuture<EventDelta> loadSnapshotAsync() {
+        if (!binary) {
+            return loadSinceAsync(0);
+        }
+        return binaryRequest(BinaryCodec.OP_LOAD_SNAPSHOT, request -> { }, (opcode, response) -> {
+            if (opcode != BinaryCodec.R_SNAPSHOT) {
+                throw new IOException("Unexpected response to load snapshot: " + opcode);
+            }
+            long version = response.readVarLong();
+            EventSnapshot snapshot = EventSnapshot.read(response.readRemaining());
+            return new EventDelta(true, snapshot.getEvents(), new ArrayList<>(), version);
+        });
+    }
+
+    /**
+     * Starts loading one page of events, so a large timetable can be read and shown piece by
+     * piece without either side holding it all as one response.
+     * @param cursor EventPage.FIRST, or the next cursor of the previous page
+     * @param limit The most events to return; the server caps this
+     * @param from The first date to include, or null for no lower bound
+     * @param to The last date to include, or null for no upper bound
+     * @return A future completed with the page
+     */
+    public CompletableFuture<EventPage> loadPageAsync(String cursor, int limit, LocalDate from, LocalDate to) {
+        String first = from == null ? "" : from.toString();
+        String last = to == null ? "" : to.toString();
+        if (!binary) {
+            return sendAsync("LOAD_PAGE|" + cursor + "|" + limit + "|" + first + "|" + last)
+                .thenApply(ClientConnection::parsePage);
+        }
+        ArrayList<Event> events = new ArrayList<>();
+        return binaryRequest(BinaryCodec.OP_LOAD_PAGE, request -> {
+            request.writeText(cursor);
+            request.writeVarLong(limit);
+            request.writeText(first);
+            request.writeText(last);
+        }, (opcode, response) -> {
+            if (opcode == BinaryCodec.R_EVENTS) {
+                for (long i = response.readVarLong(); i > 0; i--) {
+                    events.add(response.readEvent());
+                }
+                return null;
+            }
+            if (opcode != BinaryCodec.R_END_PAGE) {
+                throw new IOException("Unexpected response to load page: " + opcode);
+            }
+            String next = response.readText();
+            return new EventPage(events, next.equals(NO_MORE_PAGES) ? null : next, response.readVarLong());
+        });
+    }
+
+    /**
+     * Adds an event on the server and stores the id it was given in the event.
+     * @param event The event to add
+     * @throws Exception if communication fails or the server refuses the event
+     */
+    public void addEvent(Event event) throws Exception {
+        await(addEventAsync(event));
+    }
+
+    /**
+     * Starts adding an event on the server.
+     * @param event The event to add
+     * @return A future completed with the event, now carrying the id it was given
+     */
+    public CompletableFuture<Event> addEventAsync(Event event) {
+        if (!binary) {
+            return sendAsync(String.format("ADD|%s|%s|%s|%s|%s|%s|%s",
+                event.getName(),
+                event.getStartTime().format(COMMAND_TIME),
+                event.getEndTime().format(COMMAND_TIME),
+                event.getLocation(), event.getModule(), event.getType(), event.getLecturer()))
+                .thenApply(response -> {
+                    if (!response.startsWith("Event added successfully")) {
+                        throw new CompletionException(new Exception(response));
+                    }
+                    event.setId(parseEventId(response));
+                    return event;
+                });
+        }
+        return binaryRequest(BinaryCodec.OP_ADD, request -> request.writeEvent(event), (opcode, response) -> {
+            if (opcode != BinaryCodec.R_ADDED) {
+                throw new IOException("Unexpected response to add: " + opcode);
+            }
+            event.setId(response.readVarLong());
+            return event;
+        });
+    }
+
+    /**
+     * Removes an event on the server, by id when it has one and by name and start time otherwise.
+     * @param event The event to remove
+     * @throws Exception if communication fails or the server cannot remove the event
+     */
+    public void removeEvent(Event event) throws Exception {
+        await(removeEventAsync(event));
+    }
+
+    /**
+     * Starts removing an event on the server.
+     * @param event The event to remove
+     * @return A future completed with the event once the server has removed it
+     */
+    public CompletableFuture<Event> removeEventAsync(Event event) {
+        if (binary && event.getId() != 0) {
+            return binaryRequest(BinaryCodec.OP_REMOVE_ID, request -> request.writeVarLong(event.getId()), (opcode, response) -> {
+                if (opcode != BinaryCodec.R_REMOVED) {
+                    throw new IOException("Unexpected response to remove: " + opcode);
+                }
+                response.readVarLong();
+                return event;
+            });
+        }
+        return sendAsync(event.getId() != 0
+            ? "REMOVE_ID|" + event.getId()
+            : String.format("REMOVE|%s|%s", event.getName(), event.getStartTime().format(COMMAND_TIME)))
+            .thenApply(response -> {
+                if (!response.startsWith("Event removed successfully")) {
+                    throw new CompletionException(new Exception(response));
+                }
+                return event;
+            });
+    }
+
+    /**
+     * Subscribes to changes made on the server by any client, including this one.
+     * Subscribe before loading: a change committed in between is then pushed rather than missed,
+     * and pushes repeat what a later load already contains, so they must be applied by id.
+     * A subscription ends with the connection; after reconnecting, subscribe again and catch
+     * up with loadSince.
+     * @param listener Receives each pushed change on the reader thread
+     * @throws Exception if communication fails or the server does not support subscriptions
+     */
+    public void subscribe(EventChangeListener listener) throws Exception {
+        await(subscribeAsync(listener));
+    }
+
+    /**
+     * Starts subscribing to changes made on the server, as subscribe does.
+     * @param listener Receives each pushed change on the reader thread
+     * @return A future completed once the server has confirmed the subscription
+     */
+    public CompletableFuture<Void> subscribeAsync(EventChangeListener listener) {
+        changeListener = listener;
+        return sendAsync("SUBSCRIBE").thenAccept(response -> {
+            if (!response.equals("SUBSCRIBED")) {
+                changeListener = null;
+                throw new CompletionException(new Exception(response));
+            }
+        });
+    }
+
+    /**
+     * Checks whether pushed changes are being received.
+     * @return true once subscribe has succeeded
+     */
+    public boolean isSubscribed() {
+        return changeListener != null;
+    }
+
     /**
      * Sends a message to the server and returns the response.
+     * If the server is busy the message is sent again after the delay it asks for, up to
+     * MAX_ATTEMPTS times; the last BUSY response is returned if it never gets through.
      * @param message The message to send to the server
      * @return Server response as a String. For LOAD_CSV requests, returns CSV data.
      * @throws Exception if communication fails or connection breaks
      */
     public String sendMessage(String message) throws Exception {
-        out.println(message);
-        StringBuilder response = new StringBuilder();
+        return await(sendAsync(message));
+    }
+
+    /**
+     * Sends a message to the server without waiting for the response.
+     * @param message The message to send to the server
+     * @return A future completed with the response, as returned by sendMessage
+     */
+    public CompletableFuture<String> sendAsync(String message) {
+        if (binary) {
+            return binaryRequest(BinaryCodec.OP_TEXT, request -> request.writeText(message), (opcode, response) -> {
+                if (opcode != BinaryCodec.R_TEXT) {
+                    throw new IOException("Unexpected response to text command: " + opcode);
+                }
+                String text = response.readText().trim();
+                if ("LOAD_CSV".equalsIgnoreCase(message) && text.endsWith(END_CSV)) {
+                    text = text.substring(0, text.length() - END_CSV.length());
+                }
+                return text.trim();
+            });
+        }
+        TextRequest request = new TextRequest(message);
+        sendText(request);
+        return request.result;
+    }
+
+    /**
+     * Writes a text request and queues it for its response.
+     */
+    private void sendText(TextRequest request) {
+        sendLock.lock();
+        try {
+            if (closed != null) {
+                request.result.completeExceptionally(closed);
+                return;
+            }
+            textPending.add(request);
+            out.println(request.message);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * Registers a binary request under a new correlation id and sends it.
+     */
+    private <T> CompletableFuture<T> binaryRequest(int opcode, Consumer<BinaryCodec> fields, ResponseDecoder<T> decoder) {
+        BinaryRequest<T> request = new BinaryRequest<>(opcode, fields, decoder);
+        sendBinary(request);
+        return request.result;
+    }
+
+    private void sendBinary(BinaryRequest<?> request) {
+        sendLock.lock();
+        long correlation = ++lastCorrelation;
+        try {
+            if (closed != null) {
+                request.result.completeExceptionally(closed);
+                return;
+            }
+            pending.put(correlation, request);
+            codec.beginFrame(request.opcode);
+            codec.writeVarLong(correlation);
+            request.fields.accept(codec);
+            codec.endFrame(binaryOut);
+            binaryOut.flush();
+        } catch (IOException e) {
+            pending.remove(correlation);
+            request.result.completeExceptionally(e);
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    /**
+     * Reader thread body: completes each request's future as its response arrives, and fails
+     * every outstanding request once the connection is lost.
+     */
+    private void readResponses() {
+        IOException failure = new IOException("Connection closed by server");
+        try {
+            if (binary) {
+                readBinaryResponses();
+            } else {
+                readTextResponses();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        fail(failure);
+    }
+
+    private void fail(IOException failure) {
+        sendLock.lock();
+        try {
+            closed = failure;
+            pending.values().forEach(request -> request.result.completeExceptionally(failure));
+            pending.clear();
+            TextRequest request;
+            while ((request = textPending.poll()) != null) {
+                request.result.completeExceptionally(failure);
+            }
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private void readBinaryResponses() throws IOException {
+        int opcode;
+        while ((opcode = codec.readFrame(binaryIn)) >= 0) {
+            long correlation = codec.readVarLong();
+            if (correlation == 0) {
+                EventChangeListener listener = changeListener;
+                if (opcode == BinaryCodec.R_PUSH_ADD) {
+                    long version = codec.readVarLong();
+                    Event event = codec.readEvent();
+                    if (listener != null) listener.eventAdded(event, version);
+                } else if (opcode == BinaryCodec.R_PUSH_REMOVE) {
+                    long version = codec.readVarLong();
+                    long id = codec.readVarLong();
+                    if (listener != null) listener.eventRemoved(id, version);
+                } else {
+                    throw new IOException("Unexpected push: " + opcode);
+                }
+                continue;
+            }
+            BinaryRequest<?> request = pending.get(correlation);
+            if (request == null) {
+                throw new IOException("Response to unknown request: " + correlation);
+            }
+            if (request.onFrame(opcode)) {
+                pending.remove(correlation);
+            }
+        }
+    }
+
+    private void readTextResponses() throws IOException {
         String line;
-        
-        if ("LOAD_CSV".equalsIgnoreCase(message)) {
-            // Handle multi-line CSV response
-            while ((line = in.readLine()) != null) {
-                if (line.equals("END_CSV")) break;
-                response.append(line).append("\n");
+        while ((line = in.readLine()) != null) {
+            if (line.startsWith(PUSH_ADD) || line.startsWith(PUSH_REMOVE)) {
+                // Pushed changes can arrive between any two response lines
+                EventChangeListener listener = changeListener;
+                if (listener == null) continue;
+                // PUSH|ADD|<version>|<csv row> or PUSH|REMOVE|<version>|<id>
+                int start = line.startsWith(PUSH_ADD) ? PUSH_ADD.length() : PUSH_REMOVE.length();
+                int separator = line.indexOf('|', start);
+                long version = Long.parseLong(line, start, separator, 10);
+                if (line.startsWith(PUSH_ADD)) {
+                    Event event = parseCsvLine(pushedRow.reset(line, separator + 1, line.length()));
+                    if (event != null) listener.eventAdded(event, version);
+                } else {
+                    listener.eventRemoved(Long.parseLong(line.substring(separator + 1).trim()), version);
+                }
+                continue;
             }
-        } else {
-            // Handle single-line response
-            line = in.readLine();
-            if (line != null) {
-                response.append(line);
+            TextRequest request = textPending.peek();
+            if (request == null) {
+                throw new IOException("Unexpected response: " + line);
+            }
+            if (request.endOfRows != null) {
+                // Handle multi-line response. Markers are matched up to their delimiter or as the
+                // whole line, so a row whose event name merely starts with one is still a row.
+                if ((line.startsWith(BUSY) || line.startsWith(ERROR)) && request.rows.length() == 0) {
+                    request.onResponse(line); // Refused before any rows
+                } else if (request.isEndOfRows(line)) {
+                    if (!line.equals(END_CSV)) {
+                        request.rows.append(line); // Carries the version, and a page's next cursor
+                    }
+                    request.onResponse(request.rows.toString().trim());
+                } else {
+                    request.rows.append(line).append("\n");
+                }
+            } else {
+                request.onResponse(line.trim());
             }
         }
-        
-        return response.toString().trim();
     }
-    
+
+    /**
+     * Waits for a request, rethrowing its failure as it was raised.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Decodes the response frames of a binary request.
+     */
+    private interface ResponseDecoder<T> {
+        /**
+         * Decodes one response frame.
+         * @return the result, or null if more frames follow
+         */
+        T decode(int opcode, BinaryCodec response) throws IOException;
+    }
+
+    /**
+     * A binary request in flight.
+     */
+    private class BinaryRequest<T> {
+        final int opcode;
+        final Consumer<BinaryCodec> fields;
+        final ResponseDecoder<T> decoder;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        int attempts = 1;
+
+        BinaryRequest(int opcode, Consumer<BinaryCodec> fields, ResponseDecoder<T> decoder) {
+            this.opcode = opcode;
+            this.fields = fields;
+            this.decoder = decoder;
+        }
+
+        /**
+         * Handles a response frame on the reader thread.
+         * @return true once the request is finished with
+         */
+        boolean onFrame(int responseOpcode) throws IOException {
+            if (responseOpcode == BinaryCodec.R_ERROR) {
+                result.completeExceptionally(new Exception("ERROR: " + codec.readText()));
+                return true;
+            }
+            if (responseOpcode == BinaryCodec.R_BUSY) {
+                long retryAfter = codec.readVarLong();
+                if (attempts++ == MAX_ATTEMPTS) {
+                    result.completeExceptionally(new Exception(BUSY + retryAfter));
+                } else {
+                    CompletableFuture.delayedExecutor(retryAfter, TimeUnit.MILLISECONDS).execute(() -> sendBinary(this));
+                }
+                return true;
+            }
+            T value = decoder.decode(responseOpcode, codec);
+            if (value == null) {
+                return false;
+            }
+            result.complete(value);
+            return true;
+        }
+    }
+
+    /**
+     * A text request in flight.
+     */
+    private class TextRequest {
+        final String message;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        final String endOfRows; // Line ending a multi-line response, or its start up to a "|"; null for one line
+        final StringBuilder rows = new StringBuilder(); // Rows of a multi-line response received so far
+        int attempts = 1;
+
+        TextRequest(String message) {
+            this.message = message;
+            if (message.equalsIgnoreCase("LOAD_CSV")) {
+                endOfRows = END_CSV;
+            } else if (message.toUpperCase().startsWith("LOAD_SINCE|")) {
+                endOfRows = END_SINCE;
+            } else if (message.toUpperCase().startsWith("LOAD_PAGE|")) {
+                endOfRows = END_PAGE;
+            } else {
+                endOfRows = null;
+            }
+        }
+
+        /**
+         * Tells whether a line ends this request's rows: the whole line for a terminator without
+         * a payload, and only its start when the terminator is followed by "|" and a payload.
+         */
+        boolean isEndOfRows(String line) {
+            return endOfRows.endsWith("|") ? line.startsWith(endOfRows) : line.equals(endOfRows);
+        }
+
+        /**
+         * Handles the complete response on the reader thread, sending the request again if the
+         * server was busy.
+         */
+        void onResponse(String response) {
+            textPending.poll();
+            if (response.startsWith(BUSY) && attempts++ < MAX_ATTEMPTS) {
+                rows.setLength(0);
+                long retryAfter = Long.parseLong(response.substring(BUSY.length()));
+                CompletableFuture.delayedExecutor(retryAfter, TimeUnit.MILLISECONDS).execute(() -> sendText(this));
+                return;
+            }
+            result.complete(response);
+        }
+    }
+
+    /**
+     * Parses the rows of a LOAD_CSV response.
+     */
+    private static ArrayList<Event> parseCsv(String csvData) {
+        ArrayList<Event> events = new ArrayList<>();
+        FieldReader fields = new FieldReader(',');
+        for (int start = 0, end; start < csvData.length(); start = end + 1) {
+            end = lineEnd(csvData, start);
+            Event event = parseCsvLine(fields.reset(csvData, start, end));
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Parses a LOAD_SINCE response: an optional RESET line, CSV rows of the events added,
+     * REMOVED|&lt;id&gt; lines, and the END_SINCE|&lt;version&gt; line.
+     */
+    private static EventDelta parseDelta(String response) {
+        if (!response.contains(END_SINCE)) {
+            throw new CompletionException(new Exception(response));
+        }
+        boolean reset = false;
+        ArrayList<Event> added = new ArrayList<>();
+        ArrayList<Long> removed = new ArrayList<>();
+        long version = 0;
+        FieldReader rows = new FieldReader(',');
+        FieldReader fields = new FieldReader('|');
+        for (int start = 0, end; start < response.length(); start = end + 1) {
+            end = lineEnd(response, start);
+            if (end - start == RESET.length() && response.startsWith(RESET, start)) {
+                reset = true;
+            } else if (response.startsWith("REMOVED|", start)) {
+                removed.add(fields.reset(response, start, end).parseLong(1));
+            } else if (response.startsWith(END_SINCE, start)) {
+                version = fields.reset(response, start, end).parseLong(1);
+            } else {
+                Event event = parseCsvLine(rows.reset(response, start, end));
+                if (event != null) {
+                    added.add(event);
+                }
+            }
+        }
+        return new EventDelta(reset, added, removed, version);
+    }
+
+    /**
+     * Parses a LOAD_PAGE response: CSV rows, then the END_PAGE|&lt;next cursor&gt;|&lt;version&gt; line.
+     */
+    private static EventPage parsePage(String response) {
+        int end = response.lastIndexOf(END_PAGE);
+        if (end < 0) {
+            throw new CompletionException(new Exception(response));
+        }
+        String[] trailer = response.substring(end + END_PAGE.length()).trim().split("\\|");
+        ArrayList<Event> events = parseCsv(response.substring(0, end));
+        return new EventPage(events, trailer[0].equals(NO_MORE_PAGES) ? null : trailer[0], Long.parseLong(trailer[1]));
+    }
+
+    /**
+     * Builds an event from one CSV row: name, start, end, location, module, type, lecturer and
+     * an optional id. Returns null for a row with too few fields.
+     */
+    private static Event parseCsvLine(FieldReader parts) {
+        if (parts.count() < 7) return null;
+
+        Event event = new Event(
+            parts.text(0),
+            parts.isoDateTime(1),
+            parts.isoDateTime(2),
+            parts.text(3),
+            parts.text(4),
+            parts.text(5),
+            parts.text(6)
+        );
+        if (parts.count() > 7) {
+            event.setId(parts.parseLong(7));
+        }
+        return event;
+    }
+
+    /**
+     * Finds the end of the line starting at an index of a multi-line response.
+     */
+    private static int lineEnd(String text, int start) {
+        int end = text.indexOf('\n', start);
+        return end < 0 ? text.length() : end;
+    }
+
+    /**
+     * Extracts the server-assigned id from an "Event added successfully" response.
+     * Returns 0 if the server did not include one.
+     */
+    private static long parseEventId(String response) {
+        int index = response.lastIndexOf("ID: ");
+        if (index < 0) return 0;
+        try {
+            return Long.parseLong(response.substring(index + 4).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Closes the connection to the server. Sends STOP command before closing.
      * Handles exceptions internally by printing stack traces.
      */
     public void disconnect() {
+        sendLock.lock();
         try {
             if (socket != null && !socket.isClosed()) {
-                out.println("STOP");
+                if (binary) {
+                    try {
+                        codec.beginFrame(BinaryCodec.OP_TEXT);
+                        codec.writeVarLong(++lastCorrelation);
+                        codec.writeText("STOP");
+                        codec.endFrame(binaryOut);
+                        binaryOut.flush();
+                    } catch (IOException e) {
+                        // The server has already closed its end
+                    }
+                } else {
+                    out.println("STOP");
+                }
                 socket.close();
             }
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            sendLock.unlock();
         }
     }
-}
\ No newline at end of file
+}
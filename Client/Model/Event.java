@@ -8,6 +8,7 @@ import java.time.format.DateTimeFormatter;
  * Contains details about the event's name, time, location, associated module, type, and lecturer.
  */
 public class Event {
+    private long id; // Server-assigned identifier, 0 if unknown
     private String name;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
@@ -39,6 +40,18 @@ public class Event {
 
     // Getters and Setters
 
+    /**
+     * Gets the server-assigned identifier of the event.
+     * @return the event id, or 0 if unknown
+     */
+    public long getId() { return id; }
+
+    /**
+     * Sets the identifier of the event.
+     * @param id the new event id
+     */
+    public void setId(long id) { this.id = id; }
+
     /**
      * Gets the name of the event.
      * @return the event name
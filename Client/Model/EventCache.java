@@ -0,0 +1,68 @@
+package Client.Model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * Offline copy of the event list on disk, so the client can show the timetable as soon as it
+ * starts, before it has reached the server, and can still show it while the server is down.
+ * The cache is an EventSnapshot of the events the server has confirmed, tagged with the version
+ * they reflect. Once connected, the client asks for the changes since that version, so catching
+ * up costs only what changed while it was closed; a version the server no longer covers makes
+ * it send the whole list instead, as for any reconnecting client.
+ */
+public class EventCache {
+    /** Default cache file, next to the client */
+    public static final String CACHE_FILE = "client.cache";
+
+    private final String filePath;
+
+    /**
+     * Constructs an EventCache.
+     *
+     * @param filePath The path of the cache file.
+     */
+    public EventCache(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Fills an event list from the cache. A missing or unreadable cache leaves the list as it is,
+     * to be loaded from the server as on a first start.
+     *
+     * @param list The list to fill; it takes the cached events and the version they reflect.
+     * @return true if the cache was loaded
+     */
+    public boolean load(EventList list) {
+        if (!Files.exists(Paths.get(filePath))) {
+            return false;
+        }
+        try {
+            EventSnapshot snapshot = EventSnapshot.read(filePath);
+            list.setArrayList(snapshot.getEvents());
+            list.setVersion(snapshot.getCheckpointId());
+            return true;
+        } catch (IOException e) {
+            System.err.println("Ignoring event cache " + filePath + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves an event list to the cache. Events the server has not given an id are left out,
+     * and a list that has never been loaded from the server is not saved at all.
+     *
+     * @param list The list to save.
+     * @throws IOException If an error occurs while writing the file.
+     */
+    public void save(EventList list) throws IOException {
+        if (list.getVersion() == 0) {
+            return;
+        }
+        ArrayList<Event> events = list.arrayList();
+        events.removeIf(event -> event.getId() == 0);
+        new EventSnapshot(events, list.getVersion()).write(filePath);
+    }
+}
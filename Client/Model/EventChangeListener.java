@@ -0,0 +1,22 @@
+package Client.Model;
+
+/**
+ * Receives the changes the server pushes to a subscribed connection.
+ * Called on the connection's reader thread, so implementations must hand the change to the
+ * thread that owns the model rather than apply it directly.
+ */
+public interface EventChangeListener {
+    /**
+     * Called when an event has been added on the server.
+     * @param event The event, carrying its server-assigned id
+     * @param version The server's version once the change is applied
+     */
+    void eventAdded(Event event, long version);
+
+    /**
+     * Called when an event has been removed on the server.
+     * @param id The id of the removed event
+     * @param version The server's version once the change is applied
+     */
+    void eventRemoved(long id, long version);
+}
@@ -0,0 +1,57 @@
+package Client.Model;
+
+import java.util.ArrayList;
+
+/**
+ * What a client must apply to bring its copy of the event list up to a version: the events
+ * added and the ids removed since the version it last saw, or the whole list when the change
+ * log no longer reaches back that far. Ids are never reused, so the changes can be applied
+ * in any order, and applying one the client already has is harmless.
+ *
+ * Server.Model.EventDelta is the server's copy of this class.
+ */
+public class EventDelta {
+    private final boolean reset;
+    private final ArrayList<Event> added;
+    private final ArrayList<Long> removed;
+    private final long version;
+
+    /**
+     * Constructs an EventDelta.
+     *
+     * @param reset Whether the client must discard its copy and take the added events as the whole list.
+     * @param added The events added, or every event on a reset.
+     * @param removed The ids of the events removed; empty on a reset.
+     * @param version The version the client is at once the delta is applied.
+     */
+    public EventDelta(boolean reset, ArrayList<Event> added, ArrayList<Long> removed, long version) {
+        this.reset = reset;
+        this.added = added;
+        this.removed = removed;
+        this.version = version;
+    }
+
+    /**
+     * Checks whether the delta replaces the client's copy outright.
+     * @return true if the added events are the whole list
+     */
+    public boolean isReset() { return reset; }
+
+    /**
+     * Gets the events added.
+     * @return the added events, or every event on a reset
+     */
+    public ArrayList<Event> getAdded() { return added; }
+
+    /**
+     * Gets the ids of the events removed.
+     * @return the removed ids
+     */
+    public ArrayList<Long> getRemoved() { return removed; }
+
+    /**
+     * Gets the version the client is at once the delta is applied.
+     * @return the version
+     */
+    public long getVersion() { return version; }
+}
@@ -2,16 +2,39 @@ package Client.Model;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 /**
  * Manages a collection of events with conflict detection and filtering capabilities.
  * Provides methods to add, remove, and query events based on various criteria.
+ * Events are stored by start date in sorted per-day schedules, so date and
+ * date-range lookups only touch the days concerned.
+ * Events with a server-assigned id are also indexed by it, so changes pushed by the
+ * server can be applied idempotently. The list also remembers the server version it reflects,
+ * so a client that reconnects only fetches the changes it missed, and a pushed addition that
+ * version already covers is ignored. Ids are never reused, so the ids of removed events are
+ * remembered until the list moves on to a later change, and an addition that was on its way
+ * before a removal cannot bring the event back meanwhile. The list is only used on the
+ * JavaFX thread.
  */
 public class EventList {
     private static EventList instance; // Add this
     
-    private ArrayList<Event> eventList = new ArrayList<>();
+    /** Chronological order: by start time, then end time */
+    public static final Comparator<Event> CHRONOLOGICAL =
+            Comparator.comparing(Event::getStartTime).thenComparing(Event::getEndTime);
+
+    private NavigableMap<LocalDate, DaySchedule> days = new TreeMap<>();
+    private HashMap<Long, Event> byId = new HashMap<>(); // Events with a known id
+    private Runnable onChange; // Refreshes the open view after a pushed change
+    private long version; // Server version the list reflects; 0 until the first sync
+    private final HashMap<Long, Long> removedIds = new HashMap<>(); // Removed on the server, with the removal version
 
     
     public static EventList getInstance() { // Add this
@@ -24,14 +47,15 @@ public class EventList {
      * @throws IllegalArgumentException if there's a time overlap with existing events
      */
     public void add(Event event) {
-        ArrayList<Event> eventsOnSameDate = alleventsondate(event.getStartTime().toLocalDate());
-        for (Event existingEvent : eventsOnSameDate) {
-            if (event.getStartTime().isBefore(existingEvent.getEndTime()) &&
-                event.getEndTime().isAfter(existingEvent.getStartTime())) {
-                throw new IllegalArgumentException("Event time conflict with: " + existingEvent);
-            }
+        DaySchedule day = days.computeIfAbsent(event.getStartTime().toLocalDate(), d -> new DaySchedule());
+        Event existingEvent = day.findConflict(event);
+        if (existingEvent != null) {
+            throw new IllegalArgumentException("Event time conflict with: " + existingEvent);
+        }
+        day.add(event);
+        if (event.getId() != 0) {
+            byId.put(event.getId(), event);
         }
-        eventList.add(event);
     }
 
     /**
@@ -40,17 +64,179 @@ public class EventList {
      * @throws IllegalArgumentException if the event is not found in the list
      */
     public void remove(Event event) {
-        if (!eventList.remove(event)) {
+        DaySchedule day = days.get(event.getStartTime().toLocalDate());
+        if (day == null || !day.remove(event)) {
             throw new IllegalArgumentException("Event not found: " + event);
         }
+        if (day.size() == 0) {
+            days.remove(event.getStartTime().toLocalDate());
+        }
+        if (event.getId() != 0) {
+            byId.remove(event.getId());
+        }
+    }
+
+    /**
+     * Applies an event added on the server. The server has already checked it for conflicts,
+     * and an event whose id is already present is ignored, so a change can be applied twice.
+     * @param event The added event, carrying its server-assigned id
+     */
+    public void applyAdded(Event event) {
+        if (insert(event)) {
+            changed();
+        }
+    }
+
+    /**
+     * Applies an event added on the server and pushed to this client, and records the version
+     * it brings the list to. An addition the list's version already covers is ignored, since it
+     * may have been removed again since.
+     * @param event The added event, carrying its server-assigned id
+     * @param version The server version once the event is added
+     */
+    public void applyAdded(Event event, long version) {
+        if (this.version == 0 || version > this.version) {
+            applyAdded(event);
+        }
+        advanceVersion(version);
+    }
+
+    /**
+     * Applies an event removal made on the server. Unknown ids are ignored.
+     * @param id The id of the removed event
+     */
+    public void applyRemoved(long id) {
+        if (delete(id, version)) {
+            changed();
+        }
+    }
+
+    /**
+     * Applies an event removal made on the server and pushed to this client, and records the
+     * version it brings the list to.
+     * @param id The id of the removed event
+     * @param version The server version once the event is removed
+     */
+    public void applyRemoved(long id, long version) {
+        if (delete(id, version)) {
+            changed();
+        }
+        advanceVersion(version);
+    }
+
+    /**
+     * Brings the list up to date with the changes the server sent since the version it last
+     * reflected, or replaces it outright when the server could only send every event.
+     * @param delta The changes, as returned by ClientConnection.loadSince
+     */
+    public void applyDelta(EventDelta delta) {
+        if (delta.isReset()) {
+            ArrayList<Event> events = delta.getAdded();
+            events.removeIf(event -> removedIds.containsKey(event.getId()));
+            setArrayList(events);
+            version = delta.getVersion();
+            removedIds.clear(); // The server's whole list at a version after all of them
+        } else {
+            delta.getAdded().forEach(this::insert);
+            delta.getRemoved().forEach(id -> delete(id, delta.getVersion()));
+            advanceVersion(delta.getVersion());
+        }
+        changed();
+    }
+
+    /**
+     * Applies one page of a paged load. Events already present are skipped, so pages and
+     * pushed changes can arrive in any order.
+     * @param page The page, as returned by ClientConnection.loadPageAsync
+     */
+    public void applyPage(EventPage page) {
+        page.getEvents().forEach(this::insert);
+        changed();
+    }
+
+    /**
+     * Records the server version that a completed paged load reflects: that of its first page.
+     * @param version The version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+        forgetRemovalsBefore(version);
+    }
+
+    /**
+     * Records that a change pushed by the server has been applied. Ignored until the first
+     * load has completed, so an interrupted load is started again rather than resumed.
+     * @param version The server version once that change is applied
+     */
+    public void advanceVersion(long version) {
+        if (this.version != 0 && version > this.version) {
+            this.version = version;
+            forgetRemovalsBefore(version);
+        }
+    }
+
+    /**
+     * Forgets the ids removed before a version. Anything read before those removals has been
+     * applied by the time a later change is, and a later pushed addition is checked by version.
+     */
+    private void forgetRemovalsBefore(long version) {
+        removedIds.values().removeIf(removedAt -> removedAt < version);
+    }
+
+    /**
+     * Gets the server version the list reflects, to ask for only the changes after it.
+     * @return the version, or 0 if the list has never been loaded from the server
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    private boolean insert(Event event) {
+        if (event.getId() != 0 && (byId.containsKey(event.getId()) || removedIds.containsKey(event.getId()))) {
+            return false;
+        }
+        days.computeIfAbsent(event.getStartTime().toLocalDate(), d -> new DaySchedule()).add(event);
+        if (event.getId() != 0) {
+            byId.put(event.getId(), event);
+        }
+        return true;
+    }
+
+    private boolean delete(long id, long removedAt) {
+        removedIds.merge(id, removedAt, Math::max);
+        Event event = byId.get(id);
+        if (event == null) {
+            return false;
+        }
+        remove(event);
+        return true;
     }
 
     /**
-     * Returns the underlying ArrayList of events.
+     * Sets the action run after a change from the server has been applied, replacing any
+     * previous one. Each view sets this to refresh itself when it is shown.
+     * @param onChange The refresh action, or null for none
+     */
+    public void setOnChange(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    private void changed() {
+        if (onChange != null) {
+            onChange.run();
+        }
+    }
+
+    /**
+     * Returns all events as a new ArrayList, in chronological order.
      * @return A list containing all events
      */
     public ArrayList<Event> arrayList() {
-        return eventList;
+        ArrayList<Event> events = new ArrayList<>();
+        for (DaySchedule day : days.values()) {
+            events.addAll(day.events());
+        }
+        return events;
     }
 
     /**
@@ -58,7 +244,16 @@ public class EventList {
      * @param events The new list of events to use
      */
     public void setArrayList(ArrayList<Event> events) {
-        eventList = events;
+        NavigableMap<LocalDate, DaySchedule> byDate = new TreeMap<>();
+        HashMap<Long, Event> ids = new HashMap<>();
+        for (Event event : events) {
+            byDate.computeIfAbsent(event.getStartTime().toLocalDate(), d -> new DaySchedule()).add(event);
+            if (event.getId() != 0) {
+                ids.put(event.getId(), event);
+            }
+        }
+        days = byDate;
+        byId = ids;
     }
 
     /**
@@ -67,15 +262,39 @@ public class EventList {
      * @return A list of events occurring on the specified date
      */
     public ArrayList<Event> alleventsondate(LocalDate date) {
+        DaySchedule day = days.get(date);
+        return day == null ? new ArrayList<>() : day.events();
+    }
+
+    /**
+     * Retrieves all events occurring between two dates, inclusive, in chronological order.
+     * @param from The first date of the range
+     * @param to The last date of the range
+     * @return A list of events occurring within the range
+     */
+    public ArrayList<Event> alleventsbetween(LocalDate from, LocalDate to) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getStartTime().toLocalDate().equals(date)) {
-                events.add(event);
-            }
+        for (DaySchedule day : days.subMap(from, true, to, true).values()) {
+            events.addAll(day.events());
         }
         return events;
     }
 
+    /**
+     * Counts the events on each day between two dates, inclusive, in one walk over the days
+     * that have events and without copying any of them.
+     * @param from The first date of the range
+     * @param to The last date of the range
+     * @return The number of events on each day, indexed by days since from
+     */
+    public int[] eventcountsbetween(LocalDate from, LocalDate to) {
+        int[] counts = new int[(int) ChronoUnit.DAYS.between(from, to) + 1];
+        for (Map.Entry<LocalDate, DaySchedule> day : days.subMap(from, true, to, true).entrySet()) {
+            counts[(int) ChronoUnit.DAYS.between(from, day.getKey())] = day.getValue().size();
+        }
+        return counts;
+    }
+
     /**
      * Filters events by name (case-insensitive).
      * @param name The name to search for
@@ -83,9 +302,11 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithname(String name) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getName().equalsIgnoreCase(name)) {
-                events.add(event);
+        for (DaySchedule day : days.values()) {
+            for (Event event : day.events()) {
+                if (event.getName().equalsIgnoreCase(name)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -98,9 +319,12 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithstarttime(LocalDateTime startTime) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getStartTime().equals(startTime)) {
-                events.add(event);
+        DaySchedule day = days.get(startTime.toLocalDate());
+        if (day != null) {
+            for (Event event : day.events()) {
+                if (event.getStartTime().equals(startTime)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -113,9 +337,11 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithendtime(LocalDateTime endTime) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getEndTime().equals(endTime)) {
-                events.add(event);
+        for (DaySchedule day : days.values()) {
+            for (Event event : day.events()) {
+                if (event.getEndTime().equals(endTime)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -128,9 +354,11 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithlocation(String location) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getLocation().equalsIgnoreCase(location)) {
-                events.add(event);
+        for (DaySchedule day : days.values()) {
+            for (Event event : day.events()) {
+                if (event.getLocation().equalsIgnoreCase(location)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -143,9 +371,11 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithmodule(String module) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getModule().equalsIgnoreCase(module)) {
-                events.add(event);
+        for (DaySchedule day : days.values()) {
+            for (Event event : day.events()) {
+                if (event.getModule().equalsIgnoreCase(module)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -158,9 +388,11 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithtype(String type) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getType().equalsIgnoreCase(type)) {
-                events.add(event);
+        for (DaySchedule day : days.values()) {
+            for (Event event : day.events()) {
+                if (event.getType().equalsIgnoreCase(type)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -173,9 +405,11 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithlecturer(String lecturer) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getLecturer().equalsIgnoreCase(lecturer)) {
-                events.add(event);
+        for (DaySchedule day : days.values()) {
+            for (Event event : day.events()) {
+                if (event.getLecturer().equalsIgnoreCase(lecturer)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -183,25 +417,13 @@ public class EventList {
 
     /**
      * Sorts a list of events chronologically by start time, using end time as a tiebreaker.
+     * The list itself keeps its events in this order already; this is for arbitrary lists.
      * @param events The list of events to sort
      * @return A new sorted list in chronological order
      */
     public static ArrayList<Event> sortList(ArrayList<Event> events) {
-        ArrayList<Event> unsorted = new ArrayList<>(events);
-        ArrayList<Event> sorted = new ArrayList<>();
-        
-        while (!unsorted.isEmpty()) {
-            int earliestIndex = 0;
-            for (int i = 1; i < unsorted.size(); i++) {
-                Event current = unsorted.get(i);
-                Event earliest = unsorted.get(earliestIndex);
-                int cmp = current.getStartTime().compareTo(earliest.getStartTime());
-                if (cmp < 0 || (cmp == 0 && current.getEndTime().compareTo(earliest.getEndTime()) < 0)) {
-                    earliestIndex = i;
-                }
-            }
-            sorted.add(unsorted.remove(earliestIndex));
-        }
+        ArrayList<Event> sorted = new ArrayList<>(events);
+        sorted.sort(CHRONOLOGICAL);
         return sorted;
     }
     
@@ -209,6 +431,10 @@ public class EventList {
     return alleventsondate(date);
 }
 
+public ArrayList<Event> geteventsbetween(LocalDate from, LocalDate to) {
+    return alleventsbetween(from, to);
+}
+
 public ArrayList<Event> geteventswithname(String name) {
     return alleventswithname(name);
 }
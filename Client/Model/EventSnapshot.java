@@ -0,0 +1,255 @@
+package Client.Model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Compact binary snapshot of the event list. The server uses it as the startup base that the
+ * journal is replayed onto, and sends it as it is on disk in answer to a snapshot load, so a
+ * client loading every event reads fixed-width records instead of parsing one text row or frame
+ * per event. The client keeps its offline cache in the same format.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int  magic, int formatVersion, long checkpointId
+ *   int  dictionarySize, then per string: int byteLength, UTF-8 bytes
+ *   int  eventCount, then per event a long id followed by seven ints:
+ *        startMinute, endMinute, name, location, module, type, lecturer
+ * </pre>
+ * Format version 1 files, written before events had ids, have no id field and are still readable.
+ * Timestamps are minutes since the epoch (UTC), matching the minute resolution of the ADD command,
+ * and the string fields are indexes into the dictionary. In the server's startup snapshot the
+ * checkpoint id ties the snapshot to its journal; in a snapshot sent to a client, or kept as the
+ * client's cache, it is the change log version the snapshot reflects.
+ *
+ * Server.Model.EventSnapshot is the server's copy of this class. The two are the same source apart
+ * from the package, this sentence and the server's main method, which needs EventListSaver, and
+ * must be changed together.
+ */
+public class EventSnapshot {
+    private static final int MAGIC = 0x45565331; // "EVS1"
+    private static final int FORMAT_VERSION = 2;
+
+    /** The earliest time a snapshot can hold, as its minutes must fit in an int */
+    public static final LocalDateTime MIN_TIME = fromEpochMinute(Integer.MIN_VALUE);
+    /** The latest time a snapshot can hold, some time in the year 6053 */
+    public static final LocalDateTime MAX_TIME = fromEpochMinute(Integer.MAX_VALUE);
+
+    private final ArrayList<Event> events;
+    private final long checkpointId;
+
+    /**
+     * Constructs a snapshot of the given events.
+     *
+     * @param events The events captured by the snapshot.
+     * @param checkpointId The checkpoint identifier, or the version the events reflect.
+     */
+    public EventSnapshot(ArrayList<Event> events, long checkpointId) {
+        this.events = events;
+        this.checkpointId = checkpointId;
+    }
+
+    /**
+     * Gets the events captured by the snapshot.
+     * @return the snapshot's events
+     */
+    public ArrayList<Event> getEvents() { return events; }
+
+    /**
+     * Gets the checkpoint identifier of the snapshot.
+     * @return the checkpoint identifier
+     */
+    public long getCheckpointId() { return checkpointId; }
+
+    /**
+     * Writes the snapshot to a file. The data is written to a temporary file and forced to disk,
+     * which then replaces the target atomically, and the rename itself is forced to disk too, so
+     * neither a crash nor a power loss leaves a partial snapshot behind, and once this returns the
+     * new snapshot survives either.
+     *
+     * @param filePath The path of the snapshot file.
+     * @throws IOException If an error occurs while writing the file, or an event's times are
+     *         outside MIN_TIME to MAX_TIME.
+     */
+    public void write(String filePath) throws IOException {
+        HashMap<String, Integer> indexes = new HashMap<>();
+        ArrayList<String> dictionary = new ArrayList<>();
+        int[] records = new int[events.size() * 7];
+        int r = 0;
+        for (Event event : events) {
+            records[r++] = toEpochMinute(event.getStartTime());
+            records[r++] = toEpochMinute(event.getEndTime());
+            records[r++] = intern(event.getName(), indexes, dictionary);
+            records[r++] = intern(event.getLocation(), indexes, dictionary);
+            records[r++] = intern(event.getModule(), indexes, dictionary);
+            records[r++] = intern(event.getType(), indexes, dictionary);
+            records[r++] = intern(event.getLecturer(), indexes, dictionary);
+        }
+
+        Path target = Paths.get(filePath);
+        Path tempFile = Paths.get(filePath + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(checkpointId);
+            out.writeInt(dictionary.size());
+            for (String value : dictionary) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(events.size());
+            r = 0;
+            for (Event event : events) {
+                out.writeLong(event.getId());
+                for (int i = 0; i < 7; i++) {
+                    out.writeInt(records[r++]);
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target);
+    }
+
+    /**
+     * Forces the directory holding a file to disk, so that a rename into it is durable.
+     * Platforms that cannot open a directory, such as Windows, make renames durable themselves.
+     *
+     * @param file A file in the directory.
+     * @throws IOException If the directory cannot be forced.
+     */
+    public static void syncDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads a snapshot file through a memory-mapped channel.
+     *
+     * @param filePath The path of the snapshot file.
+     * @return The snapshot stored in the file.
+     * @throws IOException If the file cannot be read or is not a whole snapshot.
+     */
+    public static EventSnapshot read(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a snapshot from a buffer holding its bytes, such as a mapped file or a snapshot
+     * received whole from the server.
+     *
+     * @param buffer The snapshot's bytes, from its start; the buffer's position is advanced past them.
+     * @return The snapshot.
+     * @throws IOException If the bytes are not a whole snapshot.
+     */
+    public static EventSnapshot read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not an event snapshot");
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != 1 && formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format version: " + formatVersion);
+            }
+            long checkpointId = buffer.getLong();
+
+            String[] dictionary = new String[buffer.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                int length = buffer.getInt();
+                ByteBuffer bytes = buffer.slice(buffer.position(), length);
+                dictionary[i] = StandardCharsets.UTF_8.decode(bytes).toString();
+                buffer.position(buffer.position() + length);
+            }
+
+            int count = buffer.getInt();
+            ArrayList<Event> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long id = formatVersion == 1 ? 0 : buffer.getLong();
+                LocalDateTime startTime = fromEpochMinute(buffer.getInt());
+                LocalDateTime endTime = fromEpochMinute(buffer.getInt());
+                String name = dictionary[buffer.getInt()];
+                String location = dictionary[buffer.getInt()];
+                String module = dictionary[buffer.getInt()];
+                String type = dictionary[buffer.getInt()];
+                String lecturer = dictionary[buffer.getInt()];
+                Event event = new Event(name, startTime, endTime, location, module, type, lecturer);
+                event.setId(id);
+                events.add(event);
+            }
+            return new EventSnapshot(events, checkpointId);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+                | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupt event snapshot", e);
+        }
+    }
+
+    /**
+     * Reads the checkpoint identifier from the header of an open snapshot file, leaving the
+     * channel's position where it is.
+     *
+     * @param channel The open snapshot file.
+     * @return The checkpoint identifier stored in the file.
+     * @throws IOException If the file cannot be read or is not a snapshot.
+     */
+    public static long readCheckpointId(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // Keep reading until the header is complete or the file ends
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+            throw new IOException("Not an event snapshot");
+        }
+        return header.getLong(8);
+    }
+
+    private static int intern(String value, HashMap<String, Integer> indexes, ArrayList<String> dictionary) {
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = dictionary.size();
+            indexes.put(value, index);
+            dictionary.add(value);
+        }
+        return index;
+    }
+
+    private static int toEpochMinute(LocalDateTime time) throws IOException {
+        try {
+            return Math.toIntExact(Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60));
+        } catch (ArithmeticException e) {
+            throw new IOException("Event time " + time + " is outside the range a snapshot can hold");
+        }
+    }
+
+    private static LocalDateTime fromEpochMinute(int minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,156 @@
+package Client.Model;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Splits a line into fields around a separator without copying it: only the start and end of
+ * each field are recorded, with surrounding whitespace left out as String.trim would, and a field
+ * becomes a String only when one is asked for. Numbers and timestamps are read straight from the
+ * line. As with String.split, empty fields at the end of the line are not counted.
+ *
+ * A reader is reset for each line and reused, so it belongs to one thread at a time.
+ *
+ * Server.Model.FieldReader is the server's copy of this class; the two must stay in step.
+ */
+public class FieldReader {
+    private final char separator;
+    private String line = "";
+    private int[] bounds = new int[32]; // Start and end of each field, in pairs
+    private int count;
+
+    /**
+     * Constructs a FieldReader.
+     * @param separator The character between fields, such as ',' or '|'
+     */
+    public FieldReader(char separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * Splits a new line, discarding the previous one.
+     * @param line The line to split
+     * @return this reader
+     */
+    public FieldReader reset(String line) {
+        return reset(line, 0, line.length());
+    }
+
+    /**
+     * Splits one line of a longer text, such as a row of a multi-line response, without
+     * copying the line out of it.
+     * @param text The text holding the line
+     * @param lineStart The index of the line's first character
+     * @param lineEnd The index just after its last character
+     * @return this reader
+     */
+    public FieldReader reset(String text, int lineStart, int lineEnd) {
+        this.line = text;
+        count = 0;
+        int fields = 0;
+        int start = lineStart;
+        while (true) {
+            int end = start;
+            while (end < lineEnd && text.charAt(end) != separator) {
+                end++; // Never looks past the line, so a row costs its own length in a long response
+            }
+            if (2 * fields + 2 > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            int from = start;
+            int to = end;
+            while (from < to && text.charAt(from) <= ' ') from++;
+            while (to > from && text.charAt(to - 1) <= ' ') to--;
+            bounds[2 * fields] = from;
+            bounds[2 * fields + 1] = to;
+            fields++;
+            if (end > start) {
+                count = fields; // Trailing empty fields are dropped
+            }
+            if (end == lineEnd) {
+                return this;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Gets the number of fields, not counting empty fields at the end of the line.
+     * @return the field count
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Gets a field as a string.
+     * @param index The field's position, from 0
+     * @return the field, trimmed
+     */
+    public String text(int index) {
+        check(index);
+        return line.substring(bounds[2 * index], bounds[2 * index + 1]);
+    }
+
+    /**
+     * Compares a field with a value, ignoring case, without making a string of the field.
+     * @param index The field's position, from 0
+     * @param value The value to compare with
+     * @return true if the trimmed field equals the value, ignoring case
+     */
+    public boolean is(int index, String value) {
+        check(index);
+        int start = bounds[2 * index];
+        int length = bounds[2 * index + 1] - start;
+        return length == value.length() && line.regionMatches(true, start, value, 0, length);
+    }
+
+    /**
+     * Checks whether a field is empty or all whitespace.
+     * @param index The field's position, from 0
+     * @return true if the trimmed field is empty
+     */
+    public boolean isBlank(int index) {
+        check(index);
+        return bounds[2 * index] == bounds[2 * index + 1];
+    }
+
+    /**
+     * Reads a field as a decimal number.
+     * @param index The field's position, from 0
+     * @return the number
+     * @throws NumberFormatException if the field is not a number
+     */
+    public long parseLong(int index) {
+        check(index);
+        return Long.parseLong(line, bounds[2 * index], bounds[2 * index + 1], 10);
+    }
+
+    /**
+     * Reads a field as a timestamp typed in a command: yyyy-MM-dd HH:mm.
+     * @param index The field's position, from 0
+     * @return the date and time
+     * @throws java.time.format.DateTimeParseException if the field is not a timestamp in that form
+     */
+    public LocalDateTime dateTime(int index) {
+        check(index);
+        return Timestamps.parseCommand(line, bounds[2 * index], bounds[2 * index + 1]);
+    }
+
+    /**
+     * Reads a field as a timestamp in the ISO form of CSV rows and journal records.
+     * @param index The field's position, from 0
+     * @return the date and time
+     * @throws java.time.format.DateTimeParseException if the field is not an ISO timestamp
+     */
+    public LocalDateTime isoDateTime(int index) {
+        check(index);
+        return Timestamps.parseIso(line, bounds[2 * index], bounds[2 * index + 1]);
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + count);
+        }
+    }
+}
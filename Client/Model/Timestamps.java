@@ -0,0 +1,120 @@
+package Client.Model;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Fixed-width parsers for timestamps, in the two forms the protocol uses: yyyy-MM-dd HH:mm as
+ * typed in the ADD and REMOVE commands, and the ISO form yyyy-MM-ddTHH:mm[:ss[.fraction]] that
+ * LocalDateTime.toString writes into CSV rows and journal records. Each field sits at a known
+ * offset, so a timestamp is read digit by digit from the text it arrived in, without a formatter
+ * or a substring. Commands only accept their own form, since events are stored to the minute.
+ *
+ * Server.Model.Timestamps is the server's copy of this class; the two must stay in step.
+ */
+public class Timestamps {
+    private static final int MINUTE_LENGTH = 16; // yyyy-MM-dd HH:mm
+    private static final int SECOND_LENGTH = 19; // yyyy-MM-ddTHH:mm:ss
+    private static final int MAX_LENGTH = 29; // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+
+    private Timestamps() {
+    }
+
+    /**
+     * Parses a timestamp typed in a command, which must be exactly yyyy-MM-dd HH:mm.
+     * @param text The text holding the timestamp
+     * @param start The index of the timestamp's first character
+     * @param end The index just after its last character
+     * @return the date and time
+     * @throws DateTimeParseException if that part of the text is not a timestamp in that form
+     */
+    public static LocalDateTime parseCommand(String text, int start, int end) {
+        if (end - start != MINUTE_LENGTH) {
+            throw invalid(text, start, end, Math.min(end, start + MINUTE_LENGTH));
+        }
+        return parseMinutes(text, start, end, ' ', 0, 0);
+    }
+
+    /**
+     * Parses a timestamp in the ISO form written by LocalDateTime.toString.
+     * @param text The text holding the timestamp
+     * @param start The index of the timestamp's first character
+     * @param end The index just after its last character
+     * @return the date and time
+     * @throws DateTimeParseException if that part of the text is not an ISO timestamp
+     */
+    public static LocalDateTime parseIso(String text, int start, int end) {
+        int length = end - start;
+        if (length < MINUTE_LENGTH || length > MAX_LENGTH) {
+            throw invalid(text, start, end, Math.min(end, start + MINUTE_LENGTH));
+        }
+        int second = 0;
+        int nano = 0;
+        if (length > MINUTE_LENGTH) {
+            expect(text, start, end, start + 16, ':');
+            if (length < SECOND_LENGTH) {
+                throw invalid(text, start, end, end);
+            }
+            second = digits(text, start, start + 17, 2, end);
+            if (length > SECOND_LENGTH) {
+                expect(text, start, end, start + 19, '.');
+                if (length == SECOND_LENGTH + 1) {
+                    throw invalid(text, start, end, end);
+                }
+                nano = digits(text, start, start + 20, length - 20, end);
+                for (int i = length - 20; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        return parseMinutes(text, start, end, 'T', second, nano);
+    }
+
+    /**
+     * Reads the yyyy-MM-dd?HH:mm part that both forms start with.
+     */
+    private static LocalDateTime parseMinutes(String text, int start, int end, char dateTimeSeparator, int second, int nano) {
+        expect(text, start, end, start + 4, '-');
+        expect(text, start, end, start + 7, '-');
+        expect(text, start, end, start + 10, dateTimeSeparator);
+        expect(text, start, end, start + 13, ':');
+        int year = digits(text, start, start, 4, end);
+        int month = digits(text, start, start + 5, 2, end);
+        int day = digits(text, start, start + 8, 2, end);
+        int hour = digits(text, start, start + 11, 2, end);
+        int minute = digits(text, start, start + 14, 2, end);
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        } catch (DateTimeException e) {
+            throw invalid(text, start, end, start);
+        }
+    }
+
+    private static void expect(String text, int start, int end, int index, char c) {
+        if (text.charAt(index) != c) {
+            throw invalid(text, start, end, index);
+        }
+    }
+
+    private static int digits(String text, int start, int from, int count, int end) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalid(text, start, end, i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * The failure for the timestamp between start and end, with the error index relative to start.
+     */
+    private static DateTimeParseException invalid(String text, int start, int end, int index) {
+        String value = text.substring(start, end);
+        return new DateTimeParseException("Text '" + value + "' could not be parsed at index " + (index - start),
+                value, index - start);
+    }
+}
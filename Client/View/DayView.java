@@ -4,6 +4,7 @@ import Client.Model.Event;
 import javafx.geometry.Insets;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
@@ -17,6 +18,7 @@ public class DayView {
     private Pane root;
     private Label titleLabel;
     private Button backButton, addButton, deleteButton, otherButton;
+    private ProgressIndicator progressIndicator; // Shown while a request to the server is outstanding
     private ScrollPane scrollPane;
     private VBox eventContainer;
     private int width;
@@ -32,6 +34,7 @@ public class DayView {
     private double cellBorderWidth = 1;
     private double eventBoxHeight = 80;
     private double eventBoxSpacing = 5;
+    private double progressIndicatorSize = 25;
 
     public DayView(int height, int width) {
         this.height = height;
@@ -70,6 +73,13 @@ public class DayView {
         otherButton.setLayoutX(buttonX + (controlButtonWidth + horizontalSpacing) * 3);
         otherButton.setLayoutY(titleBarHeight / 2 - controlButtonHeight / 2);
         
+        // Progress indicator, left of the buttons
+        progressIndicator = new ProgressIndicator();
+        progressIndicator.setPrefSize(progressIndicatorSize, progressIndicatorSize);
+        progressIndicator.setLayoutX(buttonX - horizontalSpacing - progressIndicatorSize);
+        progressIndicator.setLayoutY(titleBarHeight / 2 - progressIndicatorSize / 2);
+        progressIndicator.setVisible(false);
+        
         // Set fixed button sizes
         backButton.setPrefSize(controlButtonWidth, controlButtonHeight);
         addButton.setPrefSize(controlButtonWidth, controlButtonHeight);
@@ -97,7 +107,7 @@ public class DayView {
         scrollPane.setPrefWidth(width - 2 * edgeMargin);
         scrollPane.setPrefHeight(height - titleBarHeight - 20);
         
-        root.getChildren().addAll(titleLabel, backButton, addButton, deleteButton, otherButton, scrollPane);
+        root.getChildren().addAll(titleLabel, progressIndicator, backButton, addButton, deleteButton, otherButton, scrollPane);
     }
 
     public void updateView(LocalDate day, boolean hasEvents) {
@@ -212,6 +222,8 @@ public class DayView {
         otherButton.setLayoutX(buttonX + (controlButtonWidth + horizontalSpacing) * 3);
         otherButton.setLayoutY(titleBarHeight / 2 - controlButtonHeight / 2);
         
+        progressIndicator.setLayoutX(buttonX - horizontalSpacing - progressIndicatorSize);
+        
         // Position scroll pane
         scrollPane.setLayoutX(edgeMargin);
         scrollPane.setLayoutY(titleBarHeight + 10);
@@ -226,6 +238,7 @@ public class DayView {
     public Button getAddButton() { return addButton; }
     public Button getDeleteButton() { return deleteButton; }
     public Button getOtherButton() { return otherButton; }
+    public ProgressIndicator getProgressIndicator() { return progressIndicator; }
     public VBox getEventContainer() { return eventContainer; }
     public ScrollPane getScrollPane() { return scrollPane; }
     
@@ -2,6 +2,7 @@ package Client.View;
 
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.layout.Pane;
 import javafx.scene.text.Font;
 import javafx.scene.Scene;
@@ -11,6 +12,7 @@ public class YearView {
     private Label yearLabel;
     private Button leftArrow, rightArrow, stopButton;
     private Button[] monthButtons = new Button[12];
+    private ProgressIndicator progressIndicator; // Shown while a request to the server is outstanding
     private int height;
     private int width;
 
@@ -21,6 +23,7 @@ public class YearView {
     private double monthButtonHeight = 50;
     private double monthButtonFontSize = 14;
     private double arrowButtonSize = 60;
+    private double progressIndicatorSize = 30;
 
     public YearView(int height, int width) {
         this.width = width;
@@ -41,6 +44,9 @@ public class YearView {
         leftArrow = createStyledArrowButton("◀", "#2196F3", arrowButtonSize);
         rightArrow = createStyledArrowButton("▶", "#2196F3", arrowButtonSize);
         stopButton = createStyledButton("Stop", "#f44336", stopButtonWidth);
+        progressIndicator = new ProgressIndicator();
+        progressIndicator.setPrefSize(progressIndicatorSize, progressIndicatorSize);
+        progressIndicator.setVisible(false);
         
         // Month buttons grid
         String[] monthNames = {"January", "February", "March", "April", "May", "June",
@@ -59,7 +65,7 @@ public class YearView {
             root.getChildren().add(monthButtons[i]);
         }
 
-        root.getChildren().addAll(yearLabel, leftArrow, rightArrow, stopButton);
+        root.getChildren().addAll(yearLabel, leftArrow, rightArrow, stopButton, progressIndicator);
         updateLayout();
     }
 
@@ -84,6 +90,8 @@ public class YearView {
         // Stop button positioning
         stopButton.setLayoutX(width - stopButton.prefWidth(-1) - edgeMargin);
         stopButton.setLayoutY(edgeMargin);
+        progressIndicator.setLayoutX(stopButton.getLayoutX() - progressIndicatorSize - 10);
+        progressIndicator.setLayoutY(edgeMargin + (stopButton.prefHeight(-1) - progressIndicatorSize) / 2);
         
         // Month buttons grid
         int columns = 4;
@@ -204,6 +212,7 @@ public class YearView {
     public Button getRightArrow() { return rightArrow; }
     public Button getStopButton() { return stopButton; }
     public Button[] getMonthButtons() { return monthButtons; }
+    public ProgressIndicator getProgressIndicator() { return progressIndicator; }
 
     // Size setters
     public void setWidth(int width) { 
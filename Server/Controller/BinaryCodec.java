@@ -0,0 +1,378 @@
+package Server.Controller;
+
+import Server.Model.Event;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Framing and field encoding for the binary protocol, which a client requests by sending the
+ * text line PROTOCOL|BINARY. A server that answers with the same line switches the connection over;
+ * any other answer means the client stays on the text protocol.
+ *
+ * Every frame is a varint payload length followed by the payload, whose first byte is the opcode.
+ * A varint correlation id chosen by the client follows the opcode; every response frame carries the
+ * id of the request it answers, so a client can have many requests in flight on one connection.
+ * Changes pushed to a subscribed connection carry id 0, which no request uses.
+ * Integers are unsigned LEB128 varints, with signed values zigzag-encoded first. Timestamps are
+ * minutes since the epoch (UTC), as in the snapshot file. Event fields are dictionary-coded: a
+ * string is sent in full the first time (tag 0, then length and UTF-8 bytes) and afterwards as
+ * tag n, meaning the n-th string that direction has sent. Each direction keeps its own dictionary
+ * for the life of the connection, so one codec serves one connection and is not thread-safe.
+ *
+ * Client.Model.BinaryCodec is the client's copy of this class; the two must stay in step.
+ */
+public class BinaryCodec {
+    /** Text line that negotiates the binary protocol, and the server's acceptance of it */
+    public static final String NEGOTIATE = "PROTOCOL|BINARY";
+
+    // Client to server opcodes
+    /** A text protocol command: text command */
+    public static final int OP_TEXT = 0;
+    /** Add an event: event (id ignored) */
+    public static final int OP_ADD = 1;
+    /** Remove an event by id: varint id */
+    public static final int OP_REMOVE_ID = 2;
+    /** Load every event; answered by R_EVENTS frames and then R_END */
+    public static final int OP_LOAD = 3;
+    /** Catch up from a version: varint version; answered by R_EVENTS, R_REMOVED_IDS, then R_END_SINCE */
+    public static final int OP_LOAD_SINCE = 4;
+    /**
+     * Load a page: text cursor, varint limit, then text first and last dates (empty for no bound);
+     * answered by R_EVENTS and then R_END_PAGE
+     */
+    public static final int OP_LOAD_PAGE = 5;
+    /** Load every event as a snapshot file; answered by R_SNAPSHOT */
+    public static final int OP_LOAD_SNAPSHOT = 6;
+
+    // Server to client opcodes
+    /** Response to OP_TEXT: text response */
+    public static final int R_TEXT = 0;
+    /** The request failed: text message */
+    public static final int R_ERROR = 1;
+    /** The request was refused because the server is saturated: varint retry-after milliseconds */
+    public static final int R_BUSY = 2;
+    /** The event was added: varint id */
+    public static final int R_ADDED = 3;
+    /** The event was removed: varint id */
+    public static final int R_REMOVED = 4;
+    /** A chunk of a load: varint count, then that many events */
+    public static final int R_EVENTS = 5;
+    /** End of a load */
+    public static final int R_END = 6;
+    /** A pushed change, with correlation id 0: varint version, then the event added */
+    public static final int R_PUSH_ADD = 7;
+    /** A pushed change, with correlation id 0: varint version, then the varint id of the event removed */
+    public static final int R_PUSH_REMOVE = 8;
+    /** The version asked for is no longer covered; the events that follow are the whole list */
+    public static final int R_RESET = 9;
+    /** A chunk of the ids removed since a version: varint count, then that many varint ids */
+    public static final int R_REMOVED_IDS = 10;
+    /** End of a load since a version: varint version the client is now at */
+    public static final int R_END_SINCE = 11;
+    /** End of a page: text cursor of the next page, then varint version when the page was read */
+    public static final int R_END_PAGE = 12;
+    /**
+     * A snapshot of every event: varint version the snapshot reflects, then the rest of the frame
+     * is the snapshot in the EventSnapshot file format
+     */
+    public static final int R_SNAPSHOT = 13;
+
+    private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16; // Later new strings are always sent in full
+
+    private final HashMap<String, Integer> writeDictionary = new HashMap<>();
+    private final ArrayList<String> readDictionary = new ArrayList<>();
+    private byte[] out = new byte[256];
+    private int outLength;
+    private byte[] in = new byte[256];
+    private int inLength;
+    private int inPosition;
+
+    /**
+     * Starts building a new frame, discarding any frame not yet sent.
+     * @param opcode The frame's opcode
+     */
+    public void beginFrame(int opcode) {
+        outLength = 0;
+        writeByte(opcode);
+    }
+
+    /**
+     * Writes the frame built since beginFrame to a stream. The stream is not flushed, so several
+     * frames can go out in one write.
+     * @param stream The stream to write to
+     * @throws IOException If writing fails
+     */
+    public void endFrame(OutputStream stream) throws IOException {
+        endFrame(stream, 0);
+    }
+
+    /**
+     * Writes the frame built since beginFrame to a stream, with a header that also counts bytes
+     * the caller writes straight after it, such as a file sent without passing through the codec.
+     * @param stream The stream to write to
+     * @param trailingLength The number of bytes that complete the frame after this call
+     * @throws IOException If writing fails or the frame would be too large
+     */
+    public void endFrame(OutputStream stream, long trailingLength) throws IOException {
+        if (outLength + trailingLength > MAX_FRAME_LENGTH) {
+            throw new IOException("Frame too large: " + (outLength + trailingLength));
+        }
+        byte[] header = new byte[5];
+        int headerLength = 0;
+        int length = (int) (outLength + trailingLength);
+        while ((length & ~0x7F) != 0) {
+            header[headerLength++] = (byte) ((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        header[headerLength++] = (byte) length;
+        stream.write(header, 0, headerLength);
+        stream.write(out, 0, outLength);
+    }
+
+    /**
+     * Gets the payload size of the frame being built.
+     * @return the number of bytes written since beginFrame
+     */
+    public int frameLength() {
+        return outLength;
+    }
+
+    /**
+     * Writes a single byte.
+     * @param value The byte to write
+     */
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        out[outLength++] = (byte) value;
+    }
+
+    /**
+     * Writes a non-negative value as a varint.
+     * @param value The value to write
+     */
+    public void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    /**
+     * Writes a value that may be negative as a zigzag varint.
+     * @param value The value to write
+     */
+    public void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a string in full, outside the dictionary. Used for one-off text such as messages.
+     * @param value The string to write
+     */
+    public void writeText(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, out, outLength, bytes.length);
+        outLength += bytes.length;
+    }
+
+    /**
+     * Writes a string through this direction's dictionary.
+     * @param value The string to write
+     */
+    public void writeString(String value) {
+        Integer index = writeDictionary.get(value);
+        if (index != null) {
+            writeVarLong(index + 1L);
+            return;
+        }
+        writeVarLong(0);
+        writeText(value);
+        if (writeDictionary.size() < MAX_DICTIONARY_SIZE) {
+            writeDictionary.put(value, writeDictionary.size());
+        }
+    }
+
+    /**
+     * Writes an event: varint id, start minute, duration in minutes, then the name, location,
+     * module, type and lecturer through the dictionary.
+     * @param event The event to write
+     */
+    public void writeEvent(Event event) {
+        long start = toEpochMinute(event.getStartTime());
+        writeVarLong(event.getId());
+        writeSignedVarLong(start);
+        writeSignedVarLong(toEpochMinute(event.getEndTime()) - start);
+        writeString(event.getName());
+        writeString(event.getLocation());
+        writeString(event.getModule());
+        writeString(event.getType());
+        writeString(event.getLecturer());
+    }
+
+    /**
+     * Reads the next frame from a stream.
+     * @param stream The stream to read from
+     * @return The frame's opcode, or -1 if the stream ended between frames
+     * @throws IOException If reading fails, the stream ends inside a frame, or the frame is too large
+     */
+    public int readFrame(InputStream stream) throws IOException {
+        int b = stream.read();
+        if (b < 0) {
+            return -1;
+        }
+        long length = 0;
+        int shift = 0;
+        while (true) {
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+            if (shift > 28 || (b = stream.read()) < 0) {
+                throw new IOException("Malformed frame header");
+            }
+        }
+        if (length == 0 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        if (in.length < length) {
+            in = new byte[(int) Math.max(length, in.length * 2L)];
+        }
+        if (stream.readNBytes(in, 0, (int) length) != length) {
+            throw new EOFException("Connection closed inside a frame");
+        }
+        inLength = (int) length;
+        inPosition = 0;
+        return readByte();
+    }
+
+    /**
+     * Reads a single byte of the current frame.
+     * @return the byte, from 0 to 255
+     * @throws IOException If the frame has no bytes left
+     */
+    public int readByte() throws IOException {
+        if (inPosition >= inLength) {
+            throw new IOException("Truncated frame");
+        }
+        return in[inPosition++] & 0xFF;
+    }
+
+    /**
+     * Reads a varint.
+     * @return the value
+     * @throws IOException If the frame is truncated or the varint is too long
+     */
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Reads a zigzag varint.
+     * @return the value
+     * @throws IOException If the frame is truncated or the varint is too long
+     */
+    public long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Takes the unread rest of the current frame, such as the snapshot in an R_SNAPSHOT frame.
+     * The buffer shares the codec's storage, so it is only valid until the next frame is read.
+     * @return a buffer over the remaining bytes
+     */
+    public ByteBuffer readRemaining() {
+        ByteBuffer remaining = ByteBuffer.wrap(in, inPosition, inLength - inPosition).slice();
+        inPosition = inLength;
+        return remaining;
+    }
+
+    /**
+     * Reads a string written with writeText.
+     * @return the string
+     * @throws IOException If the frame is truncated
+     */
+    public String readText() throws IOException {
+        long length = readVarLong();
+        if (length > inLength - inPosition) {
+            throw new IOException("Truncated frame");
+        }
+        String value = new String(in, inPosition, (int) length, StandardCharsets.UTF_8);
+        inPosition += (int) length;
+        return value;
+    }
+
+    /**
+     * Reads a string written with writeString.
+     * @return the string
+     * @throws IOException If the frame is truncated or refers to an unknown dictionary entry
+     */
+    public String readString() throws IOException {
+        long tag = readVarLong();
+        if (tag == 0) {
+            String value = readText();
+            if (readDictionary.size() < MAX_DICTIONARY_SIZE) {
+                readDictionary.add(value);
+            }
+            return value;
+        }
+        if (tag > readDictionary.size()) {
+            throw new IOException("Unknown dictionary entry: " + tag);
+        }
+        return readDictionary.get((int) tag - 1);
+    }
+
+    /**
+     * Reads an event written with writeEvent.
+     * @return the event
+     * @throws IOException If the frame is truncated or malformed
+     */
+    public Event readEvent() throws IOException {
+        long id = readVarLong();
+        long start = readSignedVarLong();
+        long duration = readSignedVarLong();
+        String name = readString();
+        String location = readString();
+        String module = readString();
+        String type = readString();
+        String lecturer = readString();
+        Event event = new Event(name, fromEpochMinute(start), fromEpochMinute(start + duration),
+                location, module, type, lecturer);
+        event.setId(id);
+        return event;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (outLength + extra > out.length) {
+            out = Arrays.copyOf(out, Math.max(outLength + extra, out.length * 2));
+        }
+    }
+
+    private static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromEpochMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,59 @@
+package Server.Controller;
+
+import Server.Model.EventChange;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Fans committed changes out to every connection that has sent SUBSCRIBE.
+ * Changes are published from the thread that completes the journal commit, so subscribers must
+ * only queue the change for their connection and never block; a subscriber that cannot keep up
+ * should drop its connection, after which the client reconnects and reloads.
+ */
+public class ChangeBroadcaster {
+    /**
+     * A connection receiving pushed changes.
+     */
+    public interface Subscriber {
+        /**
+         * Queues a committed change for the connection. Must not block.
+         * @param change the change to push
+         */
+        void publish(EventChange change);
+    }
+
+    private final CopyOnWriteArraySet<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    /**
+     * Starts pushing changes to a subscriber. Subscribing twice has no further effect.
+     * @param subscriber the subscriber to add
+     */
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Stops pushing changes to a subscriber.
+     * @param subscriber the subscriber to remove
+     */
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Pushes a committed change to every subscriber.
+     * @param change the change to push
+     */
+    public void publish(EventChange change) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.publish(change);
+        }
+    }
+
+    /**
+     * Gets the number of subscribed connections.
+     * @return the subscriber count
+     */
+    public int size() {
+        return subscribers.size();
+    }
+}
@@ -1,63 +1,132 @@
 package Server.Controller;
 
-import Server.Model.IncorrectActionException;
-import Server.Model.EventListSaver;
 import Server.Model.Event;
-import Server.Model.EventList;
+import Server.Model.EventChange;
+import Server.Model.EventDelta;
+import Server.Model.EventPage;
+import Server.Model.EventListSaver;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.Socket;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Handles communication between the server and a connected client.
- * Processes client commands related to event management.
+ * Reads the client's commands and passes them to the command dispatcher.
  */
 public class ClientHandler implements Runnable {
-    private EventListSaver saver; // Handles event list saving
-    private String saveFilePath; // File path for saving events
     private Socket clientSocket; // Client connection socket
-    private EventList eventList; // List of scheduled events
+    private CommandDispatcher dispatcher; // Runs client commands on the worker pool
+    private static final int EVENTS_PER_FRAME = 1024; // Events per R_EVENTS frame of a binary load
+    private static final int MAX_IN_FLIGHT = 1024; // Binary requests awaiting their response before reading pauses
+    private static final int MAX_QUEUED_PUSHES = 4096; // Unsent pushed changes before a subscriber is dropped
+    private static final int RESPONSE_BUFFER_SIZE = 64 * 1024; // Bytes of a text response written per socket write
+    private ChangeBroadcaster.Subscriber pushes; // Set once the client has sent SUBSCRIBE
+    private final ReentrantLock writeLock = new ReentrantLock(); // Held by pushes, binary replies and raw writes to the byte stream
 
     /**
      * Constructs a new ClientHandler.
      *
      * @param clientSocket the socket for client communication
-     * @param eventList the event list to manage
-     * @param saver the event list saver instance
-     * @param saveFilePath the file path for saving events
+     * @param dispatcher the command dispatcher shared by all connections
      */
-    public ClientHandler(Socket clientSocket, EventList eventList, EventListSaver saver, String saveFilePath) {
+    public ClientHandler(Socket clientSocket, CommandDispatcher dispatcher) {
         this.clientSocket = clientSocket;
-        this.eventList = eventList;
-        this.saver = saver;
-        this.saveFilePath = saveFilePath;
+        this.dispatcher = dispatcher;
     }
 
     /**
      * Runs the client handler, processing client requests until termination.
+     * Text responses are written through a buffer and flushed once each response is complete,
+     * so a LOAD_CSV goes out in a few large writes rather than one per row; a response bigger
+     * than the buffer is sent in buffer-sized chunks as it is written. DISPLAY and LOAD_CSV
+     * responses that are already encoded go straight to the byte stream, and LOAD_SNAPSHOT
+     * sends a file straight to the socket.
      */
     @Override
     public void run() {
         try (
             BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-            PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
+            BufferedOutputStream output = new BufferedOutputStream(clientSocket.getOutputStream(), RESPONSE_BUFFER_SIZE);
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
         ) {
             String inputLine;
             while ((inputLine = in.readLine()) != null) {
                 if (inputLine.equalsIgnoreCase("STOP")) {
                     out.println("TERMINATE");
+                    out.flush();
                     break;
                 }
-                String response = processCommand(inputLine, out);
+                if (inputLine.equalsIgnoreCase("SUBSCRIBE")) {
+                    if (pushes == null) {
+                        pushes = new TextPushes(out);
+                        dispatcher.getBroadcaster().subscribe(pushes);
+                    }
+                    out.println("SUBSCRIBED");
+                    out.flush();
+                    continue;
+                }
+                if (inputLine.equalsIgnoreCase(BinaryCodec.NEGOTIATE)) {
+                    // The client sends nothing more until it has read this, so no binary
+                    // input can be sitting in the reader's buffer
+                    out.println(BinaryCodec.NEGOTIATE);
+                    out.flush(); // Nothing text-encoded may be left buffered once frames start
+                    serveBinary(new BufferedInputStream(clientSocket.getInputStream()),
+                            new BufferedOutputStream(clientSocket.getOutputStream()));
+                    break;
+                }
+                if (inputLine.trim().equalsIgnoreCase("LOAD_SNAPSHOT")) {
+                    sendSnapshot(out, output);
+                    continue;
+                }
+                CompletableFuture<byte[]> encoded = dispatcher.dispatchEncoded(inputLine);
+                if (encoded != null) {
+                    byte[] bytes = encoded.join();
+                    writeLock.lock(); // A push must not land in the middle
+                    try {
+                        out.flush();
+                        output.write(bytes);
+                        output.flush();
+                    } finally {
+                        writeLock.unlock();
+                    }
+                    continue;
+                }
+                String response = dispatcher.dispatch(inputLine, out).join();
                 out.println(response);
+                out.flush();
             }
         } catch (Exception e) {
             System.err.println("ClientHandler exception: " + e.getMessage());
         } finally {
+            if (pushes != null) {
+                dispatcher.getBroadcaster().unsubscribe(pushes);
+            }
+            if (pushes instanceof TextPushes) {
+                ((TextPushes) pushes).stop();
+            }
             try {
                 clientSocket.close();
             } catch (Exception ex) {
@@ -67,79 +136,459 @@ public class ClientHandler implements Runnable {
     }
 
     /**
-     * Processes a command sent by the client.
+     * Serves the rest of the connection with the binary protocol described in BinaryCodec.
+     * Typed requests go to the command processor without any text parsing; OP_TEXT carries any
+     * other text command and gets its full text response, including rows written ahead of it.
      *
-     * @param command the command string received from the client
-     * @param out the PrintWriter to send responses to the client
-     * @return the response message based on the command execution
+     * Requests are pipelined. This thread only reads frames and waits for each request to be
+     * applied to the event list, which keeps a connection's requests in order; it does not wait
+     * for the journal. A writer thread sends each response, tagged with its request's correlation
+     * id, once the change is durable, so a burst of ADDs shares journal commits instead of paying
+     * for one each. At most MAX_IN_FLIGHT responses can be waiting before reading pauses.
+     * Pushes to a subscribed connection are queued apart from the responses; see BinaryPushes.
      */
-    private String processCommand(String command, PrintWriter out) {
-        String[] parts = command.split("\\|");
-        String action = parts[0].toUpperCase();
+    private void serveBinary(InputStream input, OutputStream output) throws IOException, InterruptedException {
+        BinaryCodec codec = new BinaryCodec(); // Read side here, write side under writeLock
+        BlockingQueue<CompletableFuture<Reply>> replies = new ArrayBlockingQueue<>(MAX_IN_FLIGHT);
+        Thread writer = Thread.ofVirtual().name("client-writer").start(() -> writeReplies(replies, codec, output));
         try {
-            switch (action) {
-                case "ADD":
-                    if (parts.length != 8) {
-                        throw new IncorrectActionException("Event Details Cannot Contain the character \"|\" ");
-                    }
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                    String name = parts[1].trim();
-                    LocalDateTime startTime = LocalDateTime.parse(parts[2].trim(), formatter);
-                    LocalDateTime endTime = LocalDateTime.parse(parts[3].trim(), formatter);
-                    String location = parts[4].trim();
-                    String module = parts[5].trim();
-                    String type = parts[6].trim();
-                    String lecturer = parts[7].trim();
-                    Event newEvent = new Event(name, startTime, endTime, location, module, type, lecturer);
-                    eventList.add(newEvent);
-                    saver.save(eventList.arrayList(), saveFilePath);
-                    return "Event added successfully: " + newEvent;
-                
-                case "REMOVE":
-                    if (parts.length != 3) {
-                        throw new IncorrectActionException("REMOVE command requires 2 parameters.");
+            int opcode;
+            while ((opcode = codec.readFrame(input)) >= 0) {
+                long correlation = codec.readVarLong();
+                switch (opcode) {
+                    case BinaryCodec.OP_ADD:
+                        Event event = codec.readEvent();
+                        event.setId(0); // The server assigns ids; one sent by the client is ignored
+                        replies.put(pipeline(correlation, processor -> processor.add(event),
+                                added -> frame(BinaryCodec.R_ADDED, correlation, out -> out.writeVarLong(added.getId()))));
+                        break;
+
+                    case BinaryCodec.OP_REMOVE_ID:
+                        long id = codec.readVarLong();
+                        replies.put(pipeline(correlation, processor -> processor.removeById(id),
+                                removed -> frame(BinaryCodec.R_REMOVED, correlation, out -> out.writeVarLong(removed.getId()))));
+                        break;
+
+                    case BinaryCodec.OP_LOAD:
+                        replies.put(pipeline(correlation,
+                                processor -> CompletableFuture.completedFuture(processor.events()),
+                                events -> load(correlation, events)));
+                        break;
+
+                    case BinaryCodec.OP_LOAD_SINCE:
+                        long since = codec.readVarLong();
+                        replies.put(pipeline(correlation,
+                                processor -> CompletableFuture.completedFuture(processor.sync(since)),
+                                delta -> loadSince(correlation, delta)));
+                        break;
+
+                    case BinaryCodec.OP_LOAD_PAGE:
+                        String cursor = codec.readText();
+                        int limit = (int) Math.min(codec.readVarLong(), Integer.MAX_VALUE);
+                        String from = codec.readText();
+                        String to = codec.readText();
+                        replies.put(pipeline(correlation,
+                                processor -> CompletableFuture.completedFuture(processor.page(cursor, limit,
+                                        from.isEmpty() ? null : LocalDate.parse(from), to.isEmpty() ? null : LocalDate.parse(to))),
+                                page -> loadPage(correlation, page)));
+                        break;
+
+                    case BinaryCodec.OP_LOAD_SNAPSHOT:
+                        replies.put(dispatcher.snapshot().handle((snapshots, ex) ->
+                                ex == null ? snapshot(correlation, snapshots) : failure(correlation, ex)));
+                        break;
+
+                    case BinaryCodec.OP_TEXT:
+                        String command = codec.readText();
+                        if (command.equalsIgnoreCase("STOP")) {
+                            replies.put(CompletableFuture.completedFuture(
+                                    frame(BinaryCodec.R_TEXT, correlation, out -> out.writeText("TERMINATE"))));
+                            return;
+                        }
+                        if (command.equalsIgnoreCase("SUBSCRIBE")) {
+                            if (pushes == null) {
+                                pushes = new BinaryPushes(codec, output);
+                                dispatcher.getBroadcaster().subscribe(pushes);
+                            }
+                            replies.put(CompletableFuture.completedFuture(
+                                    frame(BinaryCodec.R_TEXT, correlation, out -> out.writeText("SUBSCRIBED"))));
+                            break;
+                        }
+                        if (command.equalsIgnoreCase("STATS")) {
+                            String stats = dispatcher.stats();
+                            replies.put(CompletableFuture.completedFuture(
+                                    frame(BinaryCodec.R_TEXT, correlation, out -> out.writeText(stats))));
+                            break;
+                        }
+                        StringWriter body = new StringWriter();
+                        PrintWriter bodyWriter = new PrintWriter(body);
+                        replies.put(pipeline(correlation, processor -> processor.process(command, bodyWriter), response -> {
+                            bodyWriter.println(response);
+                            bodyWriter.flush();
+                            return frame(BinaryCodec.R_TEXT, correlation, out -> out.writeText(body.toString()));
+                        }));
+                        break;
+
+                    default:
+                        throw new IOException("Unknown opcode: " + opcode);
+                }
+            }
+        } finally {
+            if (pushes != null) {
+                dispatcher.getBroadcaster().unsubscribe(pushes);
+            }
+            replies.put(CompletableFuture.completedFuture(END));
+            writer.join();
+            if (pushes instanceof BinaryPushes) {
+                ((BinaryPushes) pushes).stop();
+            }
+        }
+    }
+
+    /**
+     * Starts a request on the worker pool and waits until it has been applied.
+     * @return the reply to send once the request's result is ready
+     */
+    private <T> CompletableFuture<Reply> pipeline(long correlation, Function<CommandProcessor, CompletableFuture<T>> request,
+            Function<T, Reply> success) {
+        CompletableFuture<T> result;
+        try {
+            result = dispatcher.start(request).join();
+        } catch (CompletionException ex) {
+            result = CompletableFuture.failedFuture(ex.getCause());
+        }
+        return result.handle((value, ex) -> ex == null ? success.apply(value) : failure(correlation, ex));
+    }
+
+    /**
+     * The reply to a request that failed: R_BUSY if it was refused, otherwise R_ERROR.
+     */
+    private static Reply failure(long correlation, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof RejectedExecutionException) {
+            return frame(BinaryCodec.R_BUSY, correlation, out -> out.writeVarLong(CommandDispatcher.RETRY_AFTER_MS));
+        }
+        String message = String.valueOf(cause.getMessage());
+        return frame(BinaryCodec.R_ERROR, correlation, out -> out.writeText(message));
+    }
+
+    /**
+     * A pushed change, sent with correlation id 0 since it answers no request.
+     */
+    private static Reply push(EventChange change) {
+        Event event = change.getEvent();
+        long version = change.getVersion();
+        return change.getType() == EventChange.Type.ADD
+                ? frame(BinaryCodec.R_PUSH_ADD, 0, out -> {
+                    out.writeVarLong(version);
+                    out.writeEvent(event);
+                })
+                : frame(BinaryCodec.R_PUSH_REMOVE, 0, out -> {
+                    out.writeVarLong(version);
+                    out.writeVarLong(event.getId());
+                });
+    }
+
+    /**
+     * Closes the connection of a subscriber whose pushes are backing up, rather than let
+     * one slow client hold up the journal thread or grow the queue without limit.
+     * The client reloads when it reconnects.
+     */
+    private void dropSlowSubscriber() {
+        dispatcher.getBroadcaster().unsubscribe(pushes);
+        try {
+            clientSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * A reply of a single frame: the opcode, the correlation id, then the given fields.
+     */
+    private static Reply frame(int opcode, long correlation, Consumer<BinaryCodec> fields) {
+        return (codec, output) -> {
+            codec.beginFrame(opcode);
+            codec.writeVarLong(correlation);
+            fields.accept(codec);
+            codec.endFrame(output);
+        };
+    }
+
+    /**
+     * The reply to a load: R_EVENTS chunks of up to EVENTS_PER_FRAME events, then R_END.
+     */
+    private static Reply load(long correlation, ArrayList<Event> events) {
+        return (codec, output) -> {
+            writeEvents(codec, output, correlation, events);
+            frame(BinaryCodec.R_END, correlation, out -> { }).write(codec, output);
+        };
+    }
+
+    /**
+     * The reply to a load since a version: R_RESET if the whole list follows, R_EVENTS chunks of
+     * the events added, R_REMOVED_IDS chunks of the ids removed, then R_END_SINCE.
+     */
+    private static Reply loadSince(long correlation, EventDelta delta) {
+        return (codec, output) -> {
+            if (delta.isReset()) {
+                frame(BinaryCodec.R_RESET, correlation, out -> { }).write(codec, output);
+            }
+            writeEvents(codec, output, correlation, delta.getAdded());
+            ArrayList<Long> removed = delta.getRemoved();
+            for (int start = 0; start < removed.size(); start += EVENTS_PER_FRAME) {
+                List<Long> chunk = removed.subList(start, Math.min(start + EVENTS_PER_FRAME, removed.size()));
+                frame(BinaryCodec.R_REMOVED_IDS, correlation, out -> {
+                    out.writeVarLong(chunk.size());
+                    chunk.forEach(out::writeVarLong);
+                }).write(codec, output);
+            }
+            frame(BinaryCodec.R_END_SINCE, correlation, out -> out.writeVarLong(delta.getVersion())).write(codec, output);
+        };
+    }
+
+    /**
+     * The reply to a page: an R_EVENTS frame, then R_END_PAGE with the next cursor.
+     */
+    private static Reply loadPage(long correlation, EventPage page) {
+        String next = page.getNext() == null ? CommandProcessor.NO_MORE_PAGES : page.getNext();
+        return (codec, output) -> {
+            writeEvents(codec, output, correlation, page.getEvents());
+            frame(BinaryCodec.R_END_PAGE, correlation, out -> {
+                out.writeText(next);
+                out.writeVarLong(page.getVersion());
+            }).write(codec, output);
+        };
+    }
+
+    /**
+     * The reply to a snapshot load: an R_SNAPSHOT frame whose header and version are encoded here
+     * and whose body is the snapshot file, sent by transfer. The file is opened only when the reply
+     * is written, so it may be newer than when it was requested, never older.
+     */
+    private Reply snapshot(long correlation, SnapshotCache snapshots) {
+        return (codec, output) -> {
+            try (SnapshotCache.Snapshot snapshot = snapshots.open()) {
+                codec.beginFrame(BinaryCodec.R_SNAPSHOT);
+                codec.writeVarLong(correlation);
+                codec.writeVarLong(snapshot.getVersion());
+                codec.endFrame(output, snapshot.size());
+                transfer(snapshot, output);
+            }
+        };
+    }
+
+    /**
+     * Answers LOAD_SNAPSHOT on the text protocol with a SNAPSHOT|&lt;size&gt;|&lt;version&gt; line followed
+     * by that many bytes of the snapshot file, in the EventSnapshot format. writeLock keeps pushes
+     * out of the file's bytes.
+     */
+    private void sendSnapshot(PrintWriter out, OutputStream output) throws IOException {
+        SnapshotCache snapshots;
+        try {
+            snapshots = dispatcher.snapshot().join();
+        } catch (CompletionException e) {
+            out.println(e.getCause() instanceof RejectedExecutionException
+                    ? CommandDispatcher.BUSY + CommandDispatcher.RETRY_AFTER_MS
+                    : "ERROR: " + e.getCause().getMessage());
+            out.flush();
+            return;
+        }
+        writeLock.lock();
+        try (SnapshotCache.Snapshot snapshot = snapshots.open()) {
+            out.println("SNAPSHOT|" + snapshot.size() + "|" + snapshot.getVersion());
+            out.flush();
+            transfer(snapshot, output);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Sends a snapshot file after whatever is buffered in the output stream. When the socket has a
+     * channel, as it does when accepted by the server, the kernel copies the file from the page
+     * cache to the socket without it passing through the heap.
+     */
+    private void transfer(SnapshotCache.Snapshot snapshot, OutputStream output) throws IOException {
+        output.flush();
+        WritableByteChannel target = clientSocket.getChannel() != null
+                ? clientSocket.getChannel() : Channels.newChannel(output);
+        FileChannel file = snapshot.getChannel();
+        long size = snapshot.size();
+        long position = 0;
+        while (position < size) {
+            position += file.transferTo(position, size - position, target);
+        }
+        output.flush();
+    }
+
+    private static void writeEvents(BinaryCodec codec, OutputStream output, long correlation, ArrayList<Event> events)
+            throws IOException {
+        for (int start = 0; start < events.size(); start += EVENTS_PER_FRAME) {
+            List<Event> chunk = events.subList(start, Math.min(start + EVENTS_PER_FRAME, events.size()));
+            frame(BinaryCodec.R_EVENTS, correlation, out -> {
+                out.writeVarLong(chunk.size());
+                chunk.forEach(out::writeEvent);
+            }).write(codec, output);
+        }
+    }
+
+    /**
+     * Writer thread body: sends replies in request order, flushing whenever no further reply is
+     * ready. If the client stops reading, writes block here and the bounded queue pauses the reader.
+     * Each reply is written under writeLock, which the push sender holds for each push.
+     */
+    private void writeReplies(BlockingQueue<CompletableFuture<Reply>> replies, BinaryCodec codec, OutputStream output) {
+        boolean failed = false;
+        while (true) {
+            Reply reply;
+            try {
+                reply = replies.take().join();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (reply == END) {
+                break;
+            }
+            if (failed) {
+                continue; // Drain until the reader stops
+            }
+            writeLock.lock(); // Pushes are written between replies, never inside one
+            try {
+                reply.write(codec, output);
+                CompletableFuture<Reply> next = replies.peek();
+                if (next == null || !next.isDone()) {
+                    output.flush();
+                }
+            } catch (IOException e) {
+                failed = true;
+                try {
+                    clientSocket.close(); // Unblocks the reader
+                } catch (IOException ex) {
+                    // Already closed
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        try {
+            output.flush();
+        } catch (IOException e) {
+            // Client already gone
+        }
+    }
+
+    /**
+     * A response ready to be encoded and written by the writer thread.
+     */
+    private interface Reply {
+        void write(BinaryCodec codec, OutputStream output) throws IOException;
+    }
+
+    private static final Reply END = (codec, output) -> { };
+
+    /**
+     * Formats a pushed change for the text protocol. Also used by the selector server.
+     */
+    static String pushLine(EventChange change) {
+        Event event = change.getEvent();
+        return change.getType() == EventChange.Type.ADD
+                ? "PUSH|ADD|" + change.getVersion() + "|" + EventListSaver.toCsvLine(event)
+                : "PUSH|REMOVE|" + change.getVersion() + "|" + event.getId();
+    }
+
+    /**
+     * Pushes changes to a text protocol subscriber as PUSH|ADD|&lt;version&gt;|&lt;csv row&gt; and
+     * PUSH|REMOVE|&lt;version&gt;|&lt;id&gt; lines. A sender thread writes them, so publishing never blocks;
+     * each println is atomic, so pushes only ever fall between whole response lines. The sender
+     * flushes once it has nothing more queued, so a burst of changes shares a write. It holds
+     * writeLock meanwhile, so a push never splits a pre-encoded response written beneath the writer.
+     */
+    private class TextPushes implements ChangeBroadcaster.Subscriber {
+        private final BlockingQueue<String> lines = new ArrayBlockingQueue<>(MAX_QUEUED_PUSHES);
+        private final Thread sender;
+
+        TextPushes(PrintWriter out) {
+            sender = Thread.ofVirtual().name("client-pushes").start(() -> {
+                try {
+                    while (true) {
+                        String line = lines.take();
+                        writeLock.lock();
+                        try {
+                            out.println(line);
+                            if (lines.isEmpty()) {
+                                out.flush();
+                            }
+                        } finally {
+                            writeLock.unlock();
+                        }
                     }
-                    DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-                    String rName = parts[1].trim();
-                    LocalDateTime rStartTime = LocalDateTime.parse(parts[2].trim(), dtf);
-                    ArrayList<Event> removeEvents = eventList.alleventswithstarttime(rStartTime);
-                    for (Event e : removeEvents) {
-                        if (e.getName().equalsIgnoreCase(rName)) {
-                            eventList.remove(e);
-                            saver.save(eventList.arrayList(), saveFilePath);
-                            return "Event removed successfully: " + e;
+                } catch (InterruptedException e) {
+                    // Connection closed
+                }
+            });
+        }
+
+        @Override
+        public void publish(EventChange change) {
+            if (!lines.offer(pushLine(change))) {
+                dropSlowSubscriber();
+            }
+        }
+
+        void stop() {
+            sender.interrupt();
+        }
+    }
+
+    /**
+     * Pushes changes to a binary protocol subscriber as R_PUSH_ADD and R_PUSH_REMOVE frames.
+     * Pushes have their own queue and sender thread instead of sharing the reply queue, whose
+     * bound is the request window: a client with MAX_IN_FLIGHT pipelined requests outstanding is
+     * still reading, and is only dropped once MAX_QUEUED_PUSHES pushes are waiting to be sent.
+     * The sender holds writeLock for each frame, as the reply writer does, so frames never
+     * interleave, and flushes once it has nothing more queued.
+     */
+    private class BinaryPushes implements ChangeBroadcaster.Subscriber {
+        private final BlockingQueue<Reply> frames = new ArrayBlockingQueue<>(MAX_QUEUED_PUSHES);
+        private final Thread sender;
+
+        BinaryPushes(BinaryCodec codec, OutputStream output) {
+            sender = Thread.ofVirtual().name("client-pushes").start(() -> {
+                try {
+                    while (true) {
+                        Reply frame = frames.take();
+                        writeLock.lock();
+                        try {
+                            frame.write(codec, output);
+                            if (frames.isEmpty()) {
+                                output.flush();
+                            }
+                        } finally {
+                            writeLock.unlock();
                         }
                     }
-                    return "Error: Event not found.";
-                
-                case "LOAD_CSV":
-                    ArrayList<Event> loadEvents = eventList.arrayList();
-                    for (Event event : loadEvents) {
-                        String line = String.join(",",
-                            event.getName(),
-                            event.getStartTime().toString(),
-                            event.getEndTime().toString(),
-                            event.getLocation(),
-                            event.getModule(),
-                            event.getType(),
-                            event.getLecturer()
-                        );
-                        out.println(line);
+                } catch (InterruptedException e) {
+                    // Connection closed
+                } catch (IOException e) {
+                    try {
+                        clientSocket.close(); // Unblocks the reader
+                    } catch (IOException ex) {
+                        // Already closed
                     }
-                    return "END_CSV";
-                
-                case "DISPLAY":
-                    ArrayList<Event> allEvents = eventList.arrayList();
-                    if (allEvents.isEmpty()) return "No events scheduled.";
-                    return EventList.sortList(allEvents).toString();
-                
-                default:
-                    throw new IncorrectActionException("Unsupported action: " + action);
-            }
-        } catch (IncorrectActionException | IllegalArgumentException ex) {
-            return "ERROR: " + ex.getMessage();
-        } catch (Exception ex) {
-            return "ERROR: " + ex.getMessage();
+                }
+            });
+        }
+
+        @Override
+        public void publish(EventChange change) {
+            if (!frames.offer(push(change))) {
+                dropSlowSubscriber();
+            }
+        }
+
+        void stop() {
+            sender.interrupt();
         }
     }
 }
@@ -0,0 +1,205 @@
+package Server.Controller;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Runs client commands on a fixed pool of worker threads fed by a bounded queue.
+ * Connections only read and write; the number of commands executing or waiting is capped however
+ * many clients arrive at once. When the queue is full a command is refused straight away with
+ * BUSY|retry-after|&lt;ms&gt; instead of queueing without limit.
+ *
+ * STATS is answered without queueing, so the pool can be observed even while it is saturated.
+ * So are DISPLAY and LOAD_CSV while the event list is unchanged since their responses were last
+ * built; see ResponseCache. LOAD_SNAPSHOT is sent from a file kept by SnapshotCache.
+ */
+public class CommandDispatcher {
+    /** Response prefix for a command refused because the queue is full */
+    public static final String BUSY = "BUSY|retry-after|";
+    /** Suggested client back-off when a command is refused */
+    public static final long RETRY_AFTER_MS = 200;
+
+    private final CommandProcessor processor;
+    private final ThreadPoolExecutor workers;
+    private final AtomicLong rejected = new AtomicLong();
+    private final ResponseCache cache;
+    private final SnapshotCache snapshots;
+
+    /**
+     * Constructs a new CommandDispatcher.
+     *
+     * @param processor the command processor shared by all connections
+     * @param workerCount the number of worker threads
+     * @param queueCapacity the number of commands that may wait for a worker
+     */
+    public CommandDispatcher(CommandProcessor processor, int workerCount, int queueCapacity) throws IOException {
+        this(processor, workerCount, queueCapacity, null);
+    }
+
+    /**
+     * Constructs a new CommandDispatcher.
+     *
+     * @param processor the command processor shared by all connections
+     * @param workerCount the number of worker threads
+     * @param queueCapacity the number of commands that may wait for a worker
+     * @param snapshotPath the file in which snapshots are kept for LOAD_SNAPSHOT, or null for a temporary file
+     * @throws IOException if a temporary snapshot file cannot be created
+     */
+    public CommandDispatcher(CommandProcessor processor, int workerCount, int queueCapacity, Path snapshotPath)
+            throws IOException {
+        this.processor = processor;
+        this.cache = new ResponseCache(processor);
+        this.snapshots = snapshotPath == null ? SnapshotCache.temporary(processor) : new SnapshotCache(processor, snapshotPath);
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "command-worker-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues a command for a worker.
+     *
+     * @param command the command string received from the client
+     * @param out the PrintWriter for any lines sent ahead of the response, such as LOAD_CSV rows
+     * @return a future completed with the response, or with a BUSY response if the queue is full
+     */
+    public CompletableFuture<String> dispatch(String command, PrintWriter out) {
+        if (command.trim().equalsIgnoreCase("STATS")) {
+            return CompletableFuture.completedFuture(stats());
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> processor.process(command, out), workers)
+                    .thenCompose(response -> response);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(busy());
+        }
+    }
+
+    /**
+     * Answers a full-list read with its pre-encoded response. A response still current is
+     * returned without queueing; a stale one is rebuilt on a worker.
+     *
+     * @param command the command string received from the client
+     * @return a future completed with the whole response as UTF-8 bytes, or with a BUSY response
+     *         if the queue is full; null if the command's response is not cached
+     */
+    public CompletableFuture<byte[]> dispatchEncoded(String command) {
+        if (!ResponseCache.handles(command)) {
+            return null;
+        }
+        byte[] bytes = cache.getIfCurrent(command);
+        if (bytes != null) {
+            return CompletableFuture.completedFuture(bytes);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> cache.get(command), workers);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture((busy() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Brings the snapshot file up to date for LOAD_SNAPSHOT. If the event list is unchanged this
+     * completes straight away; otherwise the file is rewritten on a worker. The caller opens the
+     * file when it is ready to send it, so a queued response holds no open file.
+     *
+     * @return a future completed with the snapshot cache once its file is current, or failed with
+     *         RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<SnapshotCache> snapshot() {
+        if (snapshots.isCurrent()) {
+            return CompletableFuture.completedFuture(snapshots);
+        }
+        return submit(processor -> {
+            try {
+                snapshots.refresh();
+                return CompletableFuture.completedFuture(snapshots);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    /**
+     * Queues a typed request, such as one decoded from a binary protocol frame.
+     *
+     * @param request the work to run against the command processor
+     * @return the request's future, or a future failed with RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Function<CommandProcessor, CompletableFuture<T>> request) {
+        return start(request).thenCompose(result -> result);
+    }
+
+    /**
+     * Queues a typed request, completing as soon as a worker has applied it rather than when its
+     * result is ready. A pipelined connection waits for this to keep its requests in order without
+     * also waiting for each change to reach the journal.
+     *
+     * @param request the work to run against the command processor
+     * @return a future completed with the request's own future once the request has been applied,
+     *         or failed with RejectedExecutionException if the queue is full
+     */
+    public <T> CompletableFuture<CompletableFuture<T>> start(Function<CommandProcessor, CompletableFuture<T>> request) {
+        try {
+            return CompletableFuture.supplyAsync(() -> request.apply(processor), workers);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Gets the broadcaster through which connections subscribe to committed changes.
+     *
+     * @return the change broadcaster
+     */
+    public ChangeBroadcaster getBroadcaster() {
+        return processor.getBroadcaster();
+    }
+
+    /**
+     * Counts a refused request and builds the BUSY response for it. Also used by the server
+     * when it turns away a connection over the connection limit.
+     *
+     * @return the BUSY response
+     */
+    public String busy() {
+        rejected.incrementAndGet();
+        return BUSY + RETRY_AFTER_MS;
+    }
+
+    /**
+     * Describes the pool's current load, for sizing the worker count and queue.
+     *
+     * @return STATS|queued|n|capacity|n|active|n|workers|n|completed|n|rejected|n|subscribers|n
+     */
+    public String stats() {
+        return "STATS|queued|" + workers.getQueue().size()
+                + "|capacity|" + (workers.getQueue().size() + workers.getQueue().remainingCapacity())
+                + "|active|" + workers.getActiveCount()
+                + "|workers|" + workers.getCorePoolSize()
+                + "|completed|" + workers.getCompletedTaskCount()
+                + "|rejected|" + rejected.get()
+                + "|subscribers|" + processor.getBroadcaster().size();
+    }
+
+    /**
+     * Stops the worker threads once the queued commands have run.
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+}
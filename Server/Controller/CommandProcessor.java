@@ -0,0 +1,406 @@
+package Server.Controller;
+
+import Server.Model.IncorrectActionException;
+import Server.Model.EventListSaver;
+import Server.Model.Event;
+import Server.Model.EventChange;
+import Server.Model.ChangeLog;
+import Server.Model.EventDelta;
+import Server.Model.EventCursor;
+import Server.Model.EventPage;
+import Server.Model.EventList;
+import Server.Model.EventSnapshot;
+import Server.Model.FieldReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Executes the commands of the text protocol against the event list.
+ * Shared by every connection, whichever server mode accepted it.
+ */
+public class CommandProcessor {
+    private EventListSaver saver; // Handles event journaling
+    private EventList eventList; // List of scheduled events
+    private final ChangeBroadcaster broadcaster = new ChangeBroadcaster(); // Pushes committed changes to subscribers
+    private final ChangeLog changeLog; // Recent changes, for clients catching up with LOAD_SINCE
+    private final Set<Long> removing = ConcurrentHashMap.newKeySet(); // Ids whose REMOVE is on its way to the journal
+
+    /** Changes kept for LOAD_SINCE when no size is given */
+    public static final int DEFAULT_CHANGE_LOG = 65536;
+    /** Most events returned by one LOAD_PAGE, whatever limit the client asks for */
+    public static final int MAX_PAGE_SIZE = 10000;
+    /** Cursor of the first page, and the next cursor after the last page */
+    public static final String FIRST_PAGE = "START";
+    public static final String NO_MORE_PAGES = "END";
+
+    private static final String[] ACTIONS = {
+            "ADD", "REMOVE", "REMOVE_ID", "LOAD_CSV", "LOAD_SINCE", "LOAD_PAGE", "DISPLAY"};
+    // Commands run on the worker threads; each thread reuses one reader for every command
+    private static final ThreadLocal<FieldReader> FIELDS = ThreadLocal.withInitial(() -> new FieldReader('|'));
+
+    /**
+     * Constructs a new CommandProcessor.
+     *
+     * @param eventList the event list to manage
+     * @param saver the event list saver instance, with its journal open
+     */
+    public CommandProcessor(EventList eventList, EventListSaver saver) {
+        this(eventList, saver, DEFAULT_CHANGE_LOG);
+    }
+
+    /**
+     * Constructs a new CommandProcessor.
+     *
+     * @param eventList the event list to manage
+     * @param saver the event list saver instance, with its journal open
+     * @param changeLogSize the number of recent changes kept for LOAD_SINCE
+     */
+    public CommandProcessor(EventList eventList, EventListSaver saver, int changeLogSize) {
+        this.eventList = eventList;
+        this.saver = saver;
+        this.changeLog = new ChangeLog(changeLogSize);
+    }
+
+    /**
+     * Processes a command sent by a client.
+     * Additions are applied to the event list straight away, and removals once they are durable;
+     * either way the returned future only completes once the change is durable in the journal,
+     * so the caller must not reply before then. An addition that cannot be saved is undone, and
+     * its removal published, since clients may have loaded it meanwhile. Callers that
+     * can block simply join the future; the selector front end chains the reply onto it instead.
+     *
+     * @param command the command string received from the client
+     * @param out the PrintWriter for any lines sent ahead of the response, such as LOAD_CSV rows
+     * @return a future completed with the response message based on the command execution
+     */
+    public CompletableFuture<String> process(String command, PrintWriter out) {
+        FieldReader parts = FIELDS.get().reset(command);
+        String action = action(parts);
+        try {
+            switch (action) {
+                case "ADD":
+                    if (parts.count() != 8) {
+                        throw new IncorrectActionException("Event Details Cannot Contain the character \"|\" ");
+                    }
+                    String name = parts.text(1);
+                    LocalDateTime startTime = parts.dateTime(2);
+                    LocalDateTime endTime = parts.dateTime(3);
+                    String location = parts.text(4);
+                    String module = parts.text(5);
+                    String type = parts.text(6);
+                    String lecturer = parts.text(7);
+                    Event newEvent = new Event(name, startTime, endTime, location, module, type, lecturer);
+                    return respond(add(newEvent), "Event added successfully: ");
+
+                case "REMOVE":
+                    if (parts.count() != 3) {
+                        throw new IncorrectActionException("REMOVE command requires 2 parameters.");
+                    }
+                    String rName = parts.text(1);
+                    LocalDateTime rStartTime = parts.dateTime(2);
+                    ArrayList<Event> removeEvents = eventList.alleventswithstarttime(rStartTime);
+                    for (Event e : removeEvents) {
+                        if (e.getName().equalsIgnoreCase(rName)) {
+                            return respond(remove(e), "Event removed successfully: ");
+                        }
+                    }
+                    return CompletableFuture.completedFuture("Error: Event not found.");
+
+                case "REMOVE_ID":
+                    if (parts.count() != 2) {
+                        throw new IncorrectActionException("REMOVE_ID command requires 1 parameter.");
+                    }
+                    return respond(removeById(parseNumber(parts, 1, "REMOVE_ID command requires a numeric id.")),
+                            "Event removed successfully: ");
+
+                case "LOAD_CSV":
+                    eventList.forEach(event -> out.println(EventListSaver.toCsvLine(event)));
+                    return CompletableFuture.completedFuture("END_CSV");
+
+                case "LOAD_SINCE":
+                    if (parts.count() != 2) {
+                        throw new IncorrectActionException("LOAD_SINCE command requires 1 parameter.");
+                    }
+                    EventDelta delta = sync(parseNumber(parts, 1, "LOAD_SINCE command requires a numeric version."));
+                    if (delta.isReset()) {
+                        out.println("RESET");
+                    }
+                    delta.getAdded().forEach(event -> out.println(EventListSaver.toCsvLine(event)));
+                    delta.getRemoved().forEach(id -> out.println("REMOVED|" + id));
+                    return CompletableFuture.completedFuture("END_SINCE|" + delta.getVersion());
+
+                case "LOAD_PAGE":
+                    // LOAD_PAGE|cursor|limit[|from[|to]], with the dates as yyyy-MM-dd
+                    if (parts.count() < 3 || parts.count() > 5) {
+                        throw new IncorrectActionException("LOAD_PAGE command requires 2 to 4 parameters.");
+                    }
+                    EventPage page = page(parts.text(1),
+                            Math.toIntExact(parseNumber(parts, 2, "LOAD_PAGE command requires a numeric limit.")),
+                            parts.count() > 3 ? parseDate(parts, 3) : null,
+                            parts.count() > 4 ? parseDate(parts, 4) : null);
+                    page.getEvents().forEach(event -> out.println(EventListSaver.toCsvLine(event)));
+                    return CompletableFuture.completedFuture("END_PAGE|"
+                            + (page.getNext() == null ? NO_MORE_PAGES : page.getNext()) + "|" + page.getVersion());
+
+                case "DISPLAY":
+                    if (eventList.isEmpty()) return CompletableFuture.completedFuture("No events scheduled.");
+                    return CompletableFuture.completedFuture(eventList.arrayList().toString()); // Already in chronological order
+
+                default:
+                    throw new IncorrectActionException("Unsupported action: " + action);
+            }
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture("ERROR: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Adds an event for a client that has already decoded it, such as a binary protocol connection.
+     * Text fields may not contain commas, '|' or line breaks, since the journal, the CSV file and
+     * pushed changes store events as unescaped delimited rows.
+     *
+     * @param event the event to add
+     * @return a future completed with the event, now carrying its id, once it is durable; failed
+     *         if a field cannot be stored, it conflicts with an existing event or cannot be saved
+     */
+    public CompletableFuture<Event> add(Event event) {
+        CompletableFuture<Void> commit;
+        try {
+            checkFields(event);
+            // Queued before the event is visible, so a REMOVE of it is always journaled after its ADD
+            commit = eventList.add(event, saver::appendAdd);
+        } catch (IllegalArgumentException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        return commit.handle((ignored, ex) -> {
+            if (ex == null) {
+                publish(EventChange.Type.ADD, event);
+                return event;
+            }
+            // The event was visible while its record was on its way, so a client may have loaded it;
+            // its removal is published like any other, and undoes it there as well
+            try {
+                eventList.remove(event);
+            } catch (IllegalArgumentException alreadyRemoved) {
+                // A REMOVE that reached the journal after the failed ADD took it out already
+            }
+            publish(EventChange.Type.REMOVE, event);
+            throw saveFailed(ex);
+        });
+    }
+
+    /**
+     * Removes an event by id.
+     *
+     * @param id the id of the event to remove
+     * @return a future completed with the removed event once the removal is durable; failed if
+     *         there is no such event or the removal cannot be saved
+     */
+    public CompletableFuture<Event> removeById(long id) {
+        Event event = eventList.findById(id);
+        if (event == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Event not found: " + id));
+        }
+        return remove(event);
+    }
+
+    /**
+     * Removes an event once its REMOVE record is durable. Until then the event stays in the list,
+     * so a removal that cannot be saved has nothing to undo, and its slot cannot be taken by an
+     * ADD that a rollback would then collide with.
+     */
+    private CompletableFuture<Event> remove(Event event) {
+        if (!removing.add(event.getId())) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Event is already being removed: " + event.getId()));
+        }
+        return saver.appendRemove(event).handle((ignored, ex) -> {
+            try {
+                if (ex != null) {
+                    throw saveFailed(ex);
+                }
+                try {
+                    eventList.remove(event);
+                } catch (IllegalArgumentException alreadyRemoved) {
+                    // Its ADD failed and was rolled back after this record was queued
+                }
+                publish(EventChange.Type.REMOVE, event);
+                return event;
+            } finally {
+                removing.remove(event.getId());
+            }
+        });
+    }
+
+    /**
+     * Gets every event, for clients that encode the list themselves.
+     *
+     * @return a new list of all events in chronological order
+     */
+    public ArrayList<Event> events() {
+        return eventList.arrayList();
+    }
+
+    /**
+     * Brings a client's copy of the event list up to date from the last version it saw: only the
+     * changes since then, or every event when the change log no longer reaches back that far.
+     * A client that has never synced asks from version 0 and so always gets every event.
+     *
+     * @param since the last version the client saw
+     * @return the delta, carrying the version the client is at once it is applied
+     */
+    public EventDelta sync(long since) {
+        EventDelta delta = changeLog.since(since);
+        if (delta != null) {
+            return delta;
+        }
+        // Read the version first: every change up to it is already in the list, and any later
+        // change the list happens to include is pushed or sent again, and applied idempotently
+        long version = changeLog.version();
+        return new EventDelta(true, eventList.arrayList(), new ArrayList<>(), version);
+    }
+
+    /**
+     * Reads one page of events for a client loading the list piece by piece, so neither side
+     * ever holds the whole list as one response.
+     *
+     * @param cursor FIRST_PAGE, or the next cursor of the previous page
+     * @param limit the most events to return; capped at MAX_PAGE_SIZE
+     * @param from the first date of the window, or null for no lower bound
+     * @param to the last date of the window, or null for no upper bound
+     * @return the page, whose next cursor is null after the last page
+     * @throws IllegalArgumentException if the cursor or limit is invalid
+     */
+    public EventPage page(String cursor, int limit, LocalDate from, LocalDate to) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        limit = Math.min(limit, MAX_PAGE_SIZE);
+        EventCursor after = cursor.equalsIgnoreCase(FIRST_PAGE) ? null : EventCursor.parse(cursor);
+        long version = changeLog.version(); // Read first, as in sync
+        ArrayList<Event> events = eventList.page(after, from, to, limit + 1); // One extra shows whether more follow
+        String next = null;
+        if (events.size() > limit) {
+            events.remove(limit);
+            next = EventCursor.after(events.get(limit - 1)).toString();
+        }
+        return new EventPage(events, next, version);
+    }
+
+    /**
+     * Gets the event list's revision, which changes whenever the list does.
+     *
+     * @return the current revision
+     */
+    public long revision() {
+        return eventList.getRevision();
+    }
+
+    /**
+     * Gets the broadcaster that pushes committed changes to subscribed connections.
+     *
+     * @return the change broadcaster
+     */
+    public ChangeBroadcaster getBroadcaster() {
+        return broadcaster;
+    }
+
+    /**
+     * Gets the message of a failure from a change future, unwrapping the CompletionException
+     * that dependent stages wrap it in.
+     *
+     * @param ex the failure
+     * @return the underlying message
+     */
+    public static String errorMessage(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        return cause.getMessage();
+    }
+
+    /**
+     * Records a change in the change log and pushes it to subscribers, once it is durable or, for
+     * the removal that undoes a failed ADD, once it has been made. Both happen under the log's
+     * monitor, so pushes leave in version order.
+     */
+    private void publish(EventChange.Type type, Event event) {
+        synchronized (changeLog) {
+            broadcaster.publish(changeLog.record(type, event));
+        }
+    }
+
+    /**
+     * Parses a numeric parameter, failing with the given message rather than the parser's own.
+     */
+    private static long parseNumber(FieldReader parts, int index, String message) throws IncorrectActionException {
+        try {
+            return parts.parseLong(index);
+        } catch (NumberFormatException ex) {
+            throw new IncorrectActionException(message);
+        }
+    }
+
+    /**
+     * Parses an optional date parameter; an empty parameter means no bound.
+     */
+    private static LocalDate parseDate(FieldReader parts, int index) {
+        return parts.isBlank(index) ? null : LocalDate.parse(parts.text(index));
+    }
+
+    /**
+     * Gets a command's action as one of the constant action names, so a known command is
+     * dispatched without building an upper-case copy of it.
+     */
+    private static String action(FieldReader parts) {
+        if (parts.count() == 0) {
+            return "";
+        }
+        for (String action : ACTIONS) {
+            if (parts.is(0, action)) {
+                return action;
+            }
+        }
+        return parts.text(0).toUpperCase();
+    }
+
+    /**
+     * Rejects text fields that cannot be stored in a delimited row, and times a snapshot cannot hold.
+     */
+    private static void checkFields(Event event) {
+        for (String field : new String[] {event.getName(), event.getLocation(), event.getModule(),
+                event.getType(), event.getLecturer()}) {
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                if (c == ',' || c == '|' || c == '\n' || c == '\r') {
+                    throw new IllegalArgumentException("Event details cannot contain commas, \"|\" or line breaks");
+                }
+            }
+        }
+        // Refused now rather than when the next snapshot is written, which would fail on it
+        for (LocalDateTime time : new LocalDateTime[] {event.getStartTime(), event.getEndTime()}) {
+            if (time.isBefore(EventSnapshot.MIN_TIME) || time.isAfter(EventSnapshot.MAX_TIME)) {
+                throw new IllegalArgumentException("Event times must be between " + EventSnapshot.MIN_TIME
+                        + " and " + EventSnapshot.MAX_TIME);
+            }
+        }
+    }
+
+    /**
+     * Turns the outcome of a change into a text protocol response.
+     */
+    private CompletableFuture<String> respond(CompletableFuture<Event> change, String success) {
+        return change.handle((event, ex) -> ex == null ? success + event : "ERROR: " + errorMessage(ex));
+    }
+
+    /**
+     * The failure of a change whose journal record could not be written.
+     */
+    private static CompletionException saveFailed(Throwable ex) {
+        return new CompletionException(new IOException("Failed to save change: " + errorMessage(ex), ex));
+    }
+}
@@ -4,33 +4,133 @@ import Server.Model.Event;
 import Server.Model.EventList;
 import Server.Model.EventListSaver;
 import Server.View.ServerStatusView;
-import javafx.application.Application;
-import javafx.application.Platform;
-import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class LectureSchedulerServer extends Application {
+/**
+ * Entry point of the server. It runs headless: the listener starts straight from main, and
+ * nothing touches JavaFX unless --gui asks for the status window, so the server also runs on
+ * machines without a display or without JavaFX installed.
+ */
+public class LectureSchedulerServer {
     public static final int PORT = 12345;
+    private static final int ACCEPT_BACKLOG = 4096; // The default of 50 drops connections during a burst
     private static final String SAVE_FILE = "events.csv";
-    private static ServerStatusView statusView;
+    private static final String SNAPSHOT_FILE = "events.snapshot";
+    private static final String JOURNAL_FILE = "events.journal";
+    private static final String TRANSFER_FILE = "events.transfer"; // Snapshot sent to clients by LOAD_SNAPSHOT
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: LectureSchedulerServer [options]",
+            "  --mode=thread     one platform thread per connection (default)",
+            "  --mode=virtual    one virtual thread per connection",
+            "  --mode=selector   non-blocking NIO selector front end",
+            "  --loops=N         event-loop threads in selector mode (default: available processors)",
+            "  --workers=N       command worker threads (default: twice the available processors)",
+            "  --queue=N         commands that may wait for a worker (default: 1024)",
+            "  --max-connections=N  open connections in thread and virtual modes (default: 10000)",
+            "  --change-log=N    recent changes kept for LOAD_SINCE (default: 65536)",
+            "  --gui             also show the JavaFX status window; needs JavaFX and a display");
+    private final String mode; // "thread" (default), "virtual" or "selector"
+    private final int eventLoops; // Number of selector event loops in selector mode
+    private final int workerCount; // Threads executing commands
+    private final int queueCapacity; // Commands that may wait for a worker before clients get BUSY
+    private final int maxConnections; // Open connections allowed in the thread-per-connection modes
+    private final int changeLogSize; // Recent changes kept for clients catching up with LOAD_SINCE
+    private final AtomicBoolean stopped = new AtomicBoolean(); // Set once the events have been saved on the way out
 
+    /**
+     * Launches the server. Options:
+     *   --mode=thread     one platform thread per connection (default)
+     *   --mode=virtual    one virtual thread per connection
+     *   --mode=selector   non-blocking NIO selector front end
+     *   --loops=N         event-loop threads in selector mode (default: available processors)
+     *   --workers=N       command worker threads (default: twice the available processors)
+     *   --queue=N         commands that may wait for a worker (default: 1024)
+     *   --max-connections=N  open connections in thread and virtual modes (default: 10000)
+     *   --change-log=N    recent changes kept for LOAD_SINCE (default: 65536)
+     *   --gui             also show the JavaFX status window; needs JavaFX and a display
+     * An unknown mode or a malformed number stops the server before it starts, with the usage.
+     */
     public static void main(String[] args) {
-        // Start JavaFX application
-        launch(args);
+        Map<String, String> options = parseOptions(args);
+        LectureSchedulerServer server;
+        try {
+            server = new LectureSchedulerServer(options);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        if (options.containsKey("gui")) {
+            new Thread(server::startServer, "server").start();
+            ServerStatusView.launchWindow(args); // Returns when the window closes
+        } else {
+            server.startServer();
+        }
+    }
+
+    /**
+     * Constructs the server from its command-line options.
+     *
+     * @param options option values by name, as parsed by parseOptions
+     * @throws IllegalArgumentException if the mode is not one of thread, virtual and selector, or
+     *         a numeric option is not a number
+     */
+    public LectureSchedulerServer(Map<String, String> options) {
+        mode = options.getOrDefault("mode", "thread");
+        if (!mode.equalsIgnoreCase("thread") && !mode.equalsIgnoreCase("virtual") && !mode.equalsIgnoreCase("selector")) {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        eventLoops = intOption(options, "loops", processors);
+        workerCount = intOption(options, "workers", 2 * processors);
+        queueCapacity = intOption(options, "queue", 1024);
+        maxConnections = intOption(options, "max-connections", 10000);
+        changeLogSize = intOption(options, "change-log", CommandProcessor.DEFAULT_CHANGE_LOG);
     }
 
-    @Override
-    public void start(Stage primaryStage) {
-        // Initialize the status view
-        statusView = new ServerStatusView();
-        statusView.start(primaryStage);
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number: " + value);
+        }
+    }
 
-        // Start server in a new thread
-        new Thread(this::startServer).start();
+    /**
+     * Parses --name=value options; an option given as --name alone has an empty value.
+     * Arguments that are not options are ignored.
+     *
+     * @param args the command-line arguments
+     * @return the option values by name
+     */
+    public static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) continue;
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.put(arg.substring(2), "");
+            } else {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
     }
 
     private void startServer() {
@@ -38,29 +138,105 @@ public class LectureSchedulerServer extends Application {
         EventListSaver saver = new EventListSaver();
         
         try {
-            ArrayList<Event> savedEvents = saver.load(SAVE_FILE);
+            ArrayList<Event> savedEvents = saver.recover(SNAPSHOT_FILE, JOURNAL_FILE, SAVE_FILE);
             eventList.setArrayList(savedEvents);
         } catch (IOException e) {
-            System.err.println("Failed to load events: " + e.getMessage());
+            // Opening the journal would replace the snapshot and journal with an empty list, so stop
+            // here and leave the stored files as they are for someone to look at
+            System.err.println("Failed to load events, not starting: " + e.getMessage());
+            return;
         }
 
-        try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-            System.out.println("Server started on port " + PORT);
-            while (true) {
-                Socket clientSocket = serverSocket.accept();
-                System.out.println("Client connected: " + clientSocket.getInetAddress());
-                
-                ClientHandler handler = new ClientHandler(clientSocket, eventList, saver, SAVE_FILE);
-                new Thread(handler).start();
+        try {
+            saver.openJournal(eventList.arrayList(), SNAPSHOT_FILE, JOURNAL_FILE);
+        } catch (IOException e) {
+            System.err.println("Failed to open event journal: " + e.getMessage());
+            return;
+        }
+
+        CommandProcessor processor = new CommandProcessor(eventList, saver, changeLogSize);
+        CommandDispatcher dispatcher;
+        try {
+            dispatcher = new CommandDispatcher(processor, workerCount, queueCapacity, Path.of(TRANSFER_FILE));
+        } catch (IOException e) {
+            System.err.println("Failed to create snapshot cache: " + e.getMessage());
+            return;
+        }
+        // A container is stopped with SIGTERM and the status window exits the JVM, so save on the way out
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> stop(eventList, saver, dispatcher), "server-shutdown"));
+        try {
+            if ("selector".equalsIgnoreCase(mode)) {
+                new SelectorServer(PORT, eventLoops, dispatcher).run();
+            } else {
+                runThreadPerConnection(dispatcher, "virtual".equalsIgnoreCase(mode));
             }
         } catch (Exception e) {
             System.err.println("Server exception: " + e.getMessage());
         } finally {
-            try {
-                saver.save(eventList.arrayList(), SAVE_FILE);
-            } catch (IOException e) {
-                System.err.println("Failed to save events: " + e.getMessage());
+            stop(eventList, saver, dispatcher);
+        }
+    }
+
+    /**
+     * Stops the workers, exports the events to the CSV file and closes the journal. Runs once,
+     * whether the listener fails or the JVM is shutting down.
+     */
+    private void stop(EventList eventList, EventListSaver saver, CommandDispatcher dispatcher) {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        dispatcher.shutdown();
+        try {
+            saver.save(eventList.arrayList(), SAVE_FILE);
+            saver.closeJournal();
+        } catch (IOException e) {
+            System.err.println("Failed to save events: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Accepts connections and serves each one on its own thread.
+     * Virtual threads keep the blocking handler style while letting tens of thousands of mostly idle
+     * connections share a few carrier threads; nothing on the request path holds a monitor while it
+     * blocks, so handlers never pin their carrier.
+     * Connections beyond the connection limit are sent a BUSY response and closed, so a burst of
+     * clients cannot start an unbounded number of threads.
+     * Connections are accepted through a channel, in blocking mode, so that each socket has a
+     * channel the kernel can copy snapshot files to directly.
+     */
+    private void runThreadPerConnection(CommandDispatcher dispatcher, boolean virtual) throws IOException {
+        Thread.Builder threads = virtual ? Thread.ofVirtual().name("client-", 0) : Thread.ofPlatform().name("client-", 0);
+        Semaphore connections = new Semaphore(maxConnections);
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(PORT), ACCEPT_BACKLOG);
+            System.out.println("Server started on port " + PORT + (virtual ? " (virtual threads)" : ""));
+            StartupTimer.listening();
+            while (true) {
+                Socket clientSocket = serverChannel.accept().socket();
+                StartupTimer.accepted();
+                if (!connections.tryAcquire()) {
+                    refuse(clientSocket, dispatcher.busy());
+                    continue;
+                }
+                System.out.println("Client connected: " + clientSocket.getInetAddress());
+                
+                ClientHandler handler = new ClientHandler(clientSocket, dispatcher);
+                threads.start(() -> {
+                    try {
+                        handler.run();
+                    } finally {
+                        connections.release();
+                    }
+                });
             }
         }
     }
-}
\ No newline at end of file
+
+    private static void refuse(Socket clientSocket, String response) {
+        try (Socket socket = clientSocket) {
+            socket.getOutputStream().write((response + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Client already gone
+        }
+    }
+}
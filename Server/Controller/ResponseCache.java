@@ -0,0 +1,101 @@
+package Server.Controller;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the complete text protocol responses to the full-list reads, DISPLAY and LOAD_CSV,
+ * already encoded as UTF-8 bytes. Each response is tagged with the event list revision it was
+ * built from and rebuilt on the first read after the list changes, so repeated reads of an
+ * unchanged timetable are served without walking or formatting the events again.
+ *
+ * The cached arrays are shared between connections and must never be modified.
+ */
+public class ResponseCache {
+    private final CommandProcessor processor;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock rebuildLock = new ReentrantLock(); // One rebuild at a time, however many readers miss
+
+    /**
+     * Constructs an empty ResponseCache.
+     *
+     * @param processor the command processor that builds the responses
+     */
+    public ResponseCache(CommandProcessor processor) {
+        this.processor = processor;
+    }
+
+    /**
+     * Checks whether a command's response is cached.
+     *
+     * @param command the command string received from the client
+     * @return true for DISPLAY and LOAD_CSV
+     */
+    public static boolean handles(String command) {
+        String key = key(command);
+        return key.equals("DISPLAY") || key.equals("LOAD_CSV");
+    }
+
+    /**
+     * Gets a cached response if it is still current.
+     *
+     * @param command a command for which handles returns true
+     * @return the whole response, rows and final line included, or null if it must be rebuilt
+     */
+    public byte[] getIfCurrent(String command) {
+        Entry entry = entries.get(key(command));
+        return entry != null && entry.revision == processor.revision() ? entry.bytes : null;
+    }
+
+    /**
+     * Gets a response, rebuilding it first if the event list has changed since it was cached.
+     *
+     * @param command a command for which handles returns true
+     * @return the whole response, rows and final line included
+     */
+    public byte[] get(String command) {
+        byte[] bytes = getIfCurrent(command);
+        if (bytes != null) {
+            return bytes;
+        }
+        rebuildLock.lock();
+        try {
+            bytes = getIfCurrent(command); // Another reader may have rebuilt it meanwhile
+            if (bytes != null) {
+                return bytes;
+            }
+            // Read the revision first: a change made while building makes the entry look stale, never current
+            long revision = processor.revision();
+            StringWriter body = new StringWriter();
+            PrintWriter out = new PrintWriter(body);
+            out.println(processor.process(key(command), out).join());
+            out.flush();
+            bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            entries.put(key(command), new Entry(revision, bytes));
+            return bytes;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private static String key(String command) {
+        return command.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * A response and the revision it was built from.
+     */
+    private static class Entry {
+        final long revision;
+        final byte[] bytes;
+
+        Entry(long revision, byte[] bytes) {
+            this.revision = revision;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package Server.Controller;
+
+import Server.Model.EventChange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Non-blocking server front end built on NIO selectors.
+ * The calling thread accepts connections and hands them round-robin to a small fixed set of
+ * event-loop threads, each multiplexing its connections over one Selector. Idle clients cost a
+ * buffer and a selection key instead of a parked thread. The text protocol is unchanged.
+ */
+public class SelectorServer {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_LINE_LENGTH = 64 * 1024; // Longer requests close the connection
+    private static final int MAX_PENDING_OUTPUT = 1024 * 1024; // Stop reading while this much is unsent
+    private static final int ACCEPT_BACKLOG = 4096; // The default of 50 drops connections during a burst
+    private static final int MAX_PUSH_BACKLOG = 4 * 1024 * 1024; // Unsent output at which a subscriber is dropped
+    private static final int MAX_IN_FLIGHT = 1024; // Commands awaiting their response before reading pauses
+
+    private final int port;
+    private final CommandDispatcher dispatcher;
+    private final EventLoop[] loops;
+
+    /**
+     * Constructs a new SelectorServer.
+     *
+     * @param port the port to listen on
+     * @param loopCount the number of event-loop threads
+     * @param dispatcher the command dispatcher shared by all connections
+     */
+    public SelectorServer(int port, int loopCount, CommandDispatcher dispatcher) {
+        this.port = port;
+        this.dispatcher = dispatcher;
+        this.loops = new EventLoop[loopCount];
+    }
+
+    /**
+     * Starts the event loops and accepts connections until the server channel fails.
+     *
+     * @throws IOException if the server channel cannot be opened or accepting fails
+     */
+    public void run() throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop();
+            Thread thread = new Thread(loops[i], "selector-loop-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+            System.out.println("Server started on port " + port + " (selector mode, " + loops.length + " event loops)");
+            StartupTimer.listening();
+            int next = 0;
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                StartupTimer.accepted();
+                System.out.println("Client connected: " + channel.socket().getInetAddress());
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            }
+        }
+    }
+
+    /**
+     * One event-loop thread. All state of the connections it owns is only touched on this thread;
+     * other threads hand work over through execute(), which wakes the selector.
+     */
+    private class EventLoop implements Runnable, Executor {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        EventLoop() throws IOException {
+            selector = Selector.open();
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    channel.configureBlocking(false);
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new Connection(channel, key, this));
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                }
+            });
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                } catch (IOException e) {
+                    System.err.println("Selector exception: " + e.getMessage());
+                    return;
+                }
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isReadable()) {
+                            readBuffer.clear();
+                            connection.read(readBuffer);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-connection state: a line-framing buffer for input, a queue of unsent output, and the
+     * tail of the command chain, which keeps responses in request order even when an ADD or REMOVE
+     * completes later than the command after it would. At most MAX_IN_FLIGHT commands are on the
+     * chain before reading pauses, beyond those already in the buffer being read, so a client that
+     * pipelines without reading responses cannot grow it without limit.
+     */
+    private class Connection implements ChangeBroadcaster.Subscriber {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final EventLoop loop;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final ArrayDeque<Object> output = new ArrayDeque<>(); // ByteBuffers, and snapshot files being sent
+        private int pendingBytes; // Queued bytes held on the heap; a snapshot file being sent is not counted
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        private int inFlight; // Commands on the chain whose response has not been queued yet
+        private boolean stopping; // STOP received; no further commands are read
+        private boolean closeWhenFlushed; // TERMINATE queued; close once it has been written
+        private boolean subscribed; // SUBSCRIBE received; committed changes are pushed
+
+        Connection(SocketChannel channel, SelectionKey key, EventLoop loop) {
+            this.channel = channel;
+            this.key = key;
+            this.loop = loop;
+        }
+
+        /**
+         * Reads what is available and dispatches each complete line.
+         */
+        void read(ByteBuffer buffer) throws IOException {
+            int count = channel.read(buffer);
+            if (count < 0) {
+                close();
+                return;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining() && !stopping) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    String command = line.toString(StandardCharsets.UTF_8);
+                    line.reset();
+                    if (command.endsWith("\r")) {
+                        command = command.substring(0, command.length() - 1);
+                    }
+                    dispatch(command);
+                } else if (line.size() >= MAX_LINE_LENGTH) {
+                    close();
+                    return;
+                } else {
+                    line.write(b);
+                }
+            }
+            updateInterest();
+        }
+
+        private void dispatch(String command) {
+            inFlight++;
+            chain(command);
+            // Handled rather than chained on, so one failed command cannot stop the ones after it
+            tail = tail.handleAsync((ignored, ex) -> {
+                inFlight--;
+                updateInterest();
+                return null;
+            }, loop);
+        }
+
+        private void chain(String command) {
+            if (command.equalsIgnoreCase("STOP")) {
+                stopping = true;
+                tail = tail.thenRunAsync(() -> {
+                    closeWhenFlushed = true;
+                    send("TERMINATE" + System.lineSeparator());
+                }, loop);
+                return;
+            }
+            if (command.equalsIgnoreCase("SUBSCRIBE")) {
+                tail = tail.thenRunAsync(() -> {
+                    if (!subscribed) {
+                        subscribed = true;
+                        dispatcher.getBroadcaster().subscribe(this);
+                    }
+                    send("SUBSCRIBED" + System.lineSeparator());
+                }, loop);
+                return;
+            }
+            if (command.trim().equalsIgnoreCase("LOAD_SNAPSHOT")) {
+                tail = tail.thenComposeAsync(ignored -> dispatcher.snapshot().handleAsync((snapshots, ex) -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause == null) {
+                        sendSnapshot(snapshots);
+                    } else if (cause instanceof RejectedExecutionException) {
+                        send(CommandDispatcher.BUSY + CommandDispatcher.RETRY_AFTER_MS + System.lineSeparator());
+                    } else {
+                        send("ERROR: " + cause.getMessage() + System.lineSeparator());
+                    }
+                    return null;
+                }, loop), loop);
+                return;
+            }
+            tail = tail.thenComposeAsync(ignored -> {
+                CompletableFuture<byte[]> encoded = dispatcher.dispatchEncoded(command);
+                if (encoded != null) {
+                    return encoded.thenAcceptAsync(this::send, loop);
+                }
+                StringWriter body = new StringWriter();
+                PrintWriter out = new PrintWriter(body);
+                return dispatcher.dispatch(command, out).thenAcceptAsync(response -> {
+                    out.println(response);
+                    out.flush();
+                    send(body.toString());
+                }, loop);
+            }, loop);
+        }
+
+        private void send(String text) {
+            send(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Queues bytes for the client. The array is wrapped rather than copied, so a cached
+         * response shared with other connections is written from where it is.
+         */
+        private void send(byte[] bytes) {
+            if (!key.isValid()) return; // Connection closed while the command was running
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            pendingBytes += buffer.remaining();
+            output.add(buffer);
+            try {
+                flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /**
+         * Queues a SNAPSHOT|&lt;size&gt;|&lt;version&gt; line and then the snapshot file itself, which flush
+         * sends with transferTo as the socket accepts it. The file stays open until it is sent.
+         */
+        private void sendSnapshot(SnapshotCache snapshots) {
+            if (!key.isValid()) return;
+            SnapshotCache.Snapshot snapshot;
+            long size;
+            try {
+                snapshot = snapshots.open();
+                size = snapshot.size();
+            } catch (IOException e) {
+                send("ERROR: " + e.getMessage() + System.lineSeparator());
+                return;
+            }
+            byte[] header = ("SNAPSHOT|" + size + "|" + snapshot.getVersion() + System.lineSeparator())
+                    .getBytes(StandardCharsets.UTF_8);
+            pendingBytes += header.length;
+            output.add(ByteBuffer.wrap(header));
+            output.add(new FileRegion(snapshot, size));
+            try {
+                flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /**
+         * Writes queued output until the socket would block, and keeps read and write interest
+         * in step with how much output is still queued.
+         */
+        void flush() throws IOException {
+            while (!output.isEmpty()) {
+                Object next = output.peek();
+                if (next instanceof ByteBuffer buffer) {
+                    pendingBytes -= channel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        break;
+                    }
+                } else {
+                    FileRegion region = (FileRegion) next;
+                    if (!region.transferTo(channel)) {
+                        break;
+                    }
+                    region.close();
+                }
+                output.poll();
+            }
+            if (!key.isValid()) return;
+            if (output.isEmpty() && closeWhenFlushed) {
+                close();
+                return;
+            }
+            updateInterest();
+        }
+
+        /**
+         * Sets write interest while output is queued, and read interest unless too much output is
+         * unsent or too many commands are awaiting their response.
+         */
+        private void updateInterest() {
+            if (!key.isValid()) return;
+            int interest = output.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+            if (pendingBytes < MAX_PENDING_OUTPUT && inFlight < MAX_IN_FLIGHT && !stopping) {
+                interest |= SelectionKey.OP_READ;
+            }
+            key.interestOps(interest);
+        }
+
+        /**
+         * Queues a committed change as a PUSH line, on the event loop. A subscriber that lets
+         * this much output back up is dropped instead of buffering without limit.
+         */
+        @Override
+        public void publish(EventChange change) {
+            String line = ClientHandler.pushLine(change) + System.lineSeparator();
+            loop.execute(() -> {
+                if (pendingBytes > MAX_PUSH_BACKLOG) {
+                    close();
+                } else {
+                    send(line);
+                }
+            });
+        }
+
+        void close() {
+            if (subscribed) {
+                dispatcher.getBroadcaster().unsubscribe(this);
+            }
+            key.cancel();
+            closeQuietly(channel);
+            for (Object queued : output) {
+                if (queued instanceof FileRegion region) {
+                    region.close();
+                }
+            }
+            output.clear();
+        }
+    }
+
+    /**
+     * A snapshot file queued for a connection, and how much of it has been sent.
+     */
+    private static class FileRegion {
+        private final SnapshotCache.Snapshot snapshot;
+        private final long size;
+        private long position;
+
+        FileRegion(SnapshotCache.Snapshot snapshot, long size) {
+            this.snapshot = snapshot;
+            this.size = size;
+        }
+
+        /**
+         * Sends as much of the file as the socket accepts without blocking.
+         * @return true once the whole file has been sent
+         */
+        boolean transferTo(SocketChannel channel) throws IOException {
+            while (position < size) {
+                long sent = snapshot.getChannel().transferTo(position, size - position, channel);
+                if (sent == 0) {
+                    return false;
+                }
+                position += sent;
+            }
+            return true;
+        }
+
+        void close() {
+            try {
+                snapshot.close();
+            } catch (IOException e) {
+                // Only read from, so nothing is lost
+            }
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closing
+        }
+    }
+}
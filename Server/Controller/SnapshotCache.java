@@ -0,0 +1,146 @@
+package Server.Controller;
+
+import Server.Model.EventDelta;
+import Server.Model.EventSnapshot;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps an on-disk snapshot of the whole event list for clients that load every event at once.
+ * The file is sent with FileChannel.transferTo, so the largest responses the server gives are
+ * copied from the page cache to the socket by the kernel instead of being encoded event by event
+ * on the heap for every client.
+ *
+ * The file uses the EventSnapshot format, with the change log version it reflects in place of the
+ * checkpoint id, so a client can catch up from it with LOAD_SINCE. It is rewritten on the first
+ * request after the event list changes; a file already opened by a transfer in progress is
+ * replaced rather than overwritten, so that transfer still sends a consistent snapshot.
+ */
+public class SnapshotCache {
+    private final CommandProcessor processor;
+    private final Path path;
+    private final ReentrantLock lock = new ReentrantLock(); // Guards rewriting and opening the file
+    private volatile long revision = -1; // Event list revision the file reflects; -1 before the first write
+
+    /**
+     * Constructs a SnapshotCache. The file is written on first use.
+     *
+     * @param processor the command processor whose event list is snapshotted
+     * @param path the file to keep the snapshot in
+     */
+    public SnapshotCache(CommandProcessor processor, Path path) {
+        this.processor = processor;
+        this.path = path;
+    }
+
+    /**
+     * Checks whether the file reflects the event list as it is now.
+     *
+     * @return true if no change has been made since the file was written
+     */
+    public boolean isCurrent() {
+        return revision == processor.revision();
+    }
+
+    /**
+     * Rewrites the file if the event list has changed since it was written.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void refresh() throws IOException {
+        lock.lock();
+        try {
+            if (isCurrent()) {
+                return;
+            }
+            // Read the revision first, as in ResponseCache; sync reads the version before the events
+            long current = processor.revision();
+            EventDelta all = processor.sync(0);
+            new EventSnapshot(all.getAdded(), all.getVersion()).write(path.toString());
+            revision = current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens the snapshot file as it is now, writing it first if it has never been written.
+     * The file may be older than the event list; its version says how old.
+     *
+     * @return the open snapshot, which the caller must close
+     * @throws IOException if the file cannot be written or opened
+     */
+    public Snapshot open() throws IOException {
+        lock.lock();
+        try {
+            if (revision == -1) {
+                refresh();
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                return new Snapshot(channel, EventSnapshot.readCheckpointId(channel));
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates a cache in a temporary file, for servers that have not been given a location.
+     *
+     * @param processor the command processor whose event list is snapshotted
+     * @return the cache
+     * @throws IOException if the temporary file cannot be created
+     */
+    public static SnapshotCache temporary(CommandProcessor processor) throws IOException {
+        Path file = Files.createTempFile("events", ".transfer");
+        file.toFile().deleteOnExit();
+        return new SnapshotCache(processor, file);
+    }
+
+    /**
+     * An open snapshot file and the version it reflects.
+     */
+    public static class Snapshot implements AutoCloseable {
+        private final FileChannel channel;
+        private final long version;
+
+        Snapshot(FileChannel channel, long version) {
+            this.channel = channel;
+            this.version = version;
+        }
+
+        /**
+         * Gets the open file, positioned at its start.
+         * @return the file channel
+         */
+        public FileChannel getChannel() { return channel; }
+
+        /**
+         * Gets the change log version the snapshot reflects.
+         * @return the version
+         */
+        public long getVersion() { return version; }
+
+        /**
+         * Gets the size of the snapshot.
+         * @return the size in bytes
+         * @throws IOException if the size cannot be read
+         */
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package Server.Controller;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Logs how long the server took to start: from the launch of the JVM's process to the listening
+ * socket being bound, and to the first connection being accepted. The second figure is the
+ * cold-start time a client sees after a restart.
+ */
+public class StartupTimer {
+    private static final Instant LAUNCHED = ProcessHandle.current().info().startInstant()
+            .orElseGet(() -> Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime()));
+    private static volatile boolean accepted; // Set once the first connection has been logged
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Logs the time to bind the listening socket. Called once the server is listening.
+     */
+    public static void listening() {
+        System.out.println("Listening " + sinceLaunch() + " ms after launch");
+    }
+
+    /**
+     * Logs the time to the first accepted connection. Called after every accept; only the first
+     * call logs anything.
+     */
+    public static void accepted() {
+        if (!accepted) {
+            accepted = true;
+            System.out.println("First connection accepted " + sinceLaunch() + " ms after launch");
+        }
+    }
+
+    private static long sinceLaunch() {
+        return Duration.between(LAUNCHED, Instant.now()).toMillis();
+    }
+}
@@ -0,0 +1,93 @@
+package Server.Model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+
+/**
+ * Bounded in-memory log of committed changes, numbered by a version that rises by one with each.
+ * A reconnecting client names the last version it saw and receives only the changes after it;
+ * once the oldest of those has been evicted, it has to reload the whole list instead.
+ *
+ * Versions start from the server's start-up time in microseconds, so a version handed out by an
+ * earlier run of the server is older than anything this log covers and always forces a reload.
+ * All methods are synchronized; callers that must keep something else in version order, such as
+ * pushes to subscribers, can hold the log's monitor around record.
+ */
+public class ChangeLog {
+    private final ArrayDeque<EventChange> changes = new ArrayDeque<>();
+    private final int capacity;
+    private long version;
+    private long floor; // The version just before the oldest retained change
+
+    /**
+     * Constructs an empty ChangeLog.
+     *
+     * @param capacity The number of changes retained.
+     */
+    public ChangeLog(int capacity) {
+        this.capacity = capacity;
+        this.version = System.currentTimeMillis() * 1000;
+        this.floor = version;
+    }
+
+    /**
+     * Records a committed change under the next version, evicting the oldest change if the log is full.
+     *
+     * @param type Whether the event was added or removed.
+     * @param event The event concerned.
+     * @return the recorded change
+     */
+    public synchronized EventChange record(EventChange.Type type, Event event) {
+        EventChange change = new EventChange(type, event, ++version);
+        if (changes.size() == capacity) {
+            floor = changes.poll().getVersion();
+        }
+        changes.add(change);
+        return change;
+    }
+
+    /**
+     * Gets the version of the most recently committed change.
+     * @return the current version
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Collects the changes after a version, netted per event: an event added and then removed
+     * is only reported as removed.
+     *
+     * @param since The last version the client saw.
+     * @return the changes since that version, or null if the log does not cover it
+     */
+    public synchronized EventDelta since(long since) {
+        if (since < floor || since > version) {
+            return null;
+        }
+        // Newest first, so only the changes the client is missing are visited
+        ArrayList<Event> added = new ArrayList<>();
+        ArrayList<Long> removed = new ArrayList<>();
+        HashSet<Long> removedIds = new HashSet<>();
+        Iterator<EventChange> newestFirst = changes.descendingIterator();
+        while (newestFirst.hasNext()) {
+            EventChange change = newestFirst.next();
+            if (change.getVersion() <= since) {
+                break;
+            }
+            long id = change.getEvent().getId();
+            if (change.getType() == EventChange.Type.REMOVE) {
+                removedIds.add(id);
+                removed.add(id);
+            } else if (!removedIds.contains(id)) { // Ids are never reused, so a later removal is final
+                added.add(change.getEvent());
+            }
+        }
+        Collections.reverse(added);
+        Collections.reverse(removed);
+        return new EventDelta(false, added, removed, version);
+    }
+}
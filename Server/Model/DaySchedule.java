@@ -0,0 +1,155 @@
+package Server.Model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Holds the events that start on a single day, kept sorted by start time with end time as a tiebreaker.
+ * The longest duration seen on the day bounds how far back an overlapping event can start,
+ * so conflict checks only visit the events that can actually reach the new one.
+ *
+ * Each day is its own lock stripe. Writers must hold the write lock from getLock() around
+ * findConflict, add and remove, so a conflict check and the insert that follows are atomic.
+ * Readers use events() and size(), which try an optimistic read first and never block each other.
+ */
+public class DaySchedule {
+    private final StampedLock lock = new StampedLock();
+    private final ArrayList<Event> events = new ArrayList<>();
+    private Duration longest = Duration.ZERO; // Longest event added to this day; never shrinks
+
+    /**
+     * Gets the lock guarding this day.
+     * @return the day's lock
+     */
+    public StampedLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Finds an event on this day whose time range overlaps the given event.
+     * @param event The event to check
+     * @return An overlapping event, or null if there is none
+     */
+    public Event findConflict(Event event) {
+        LocalDateTime earliestOverlapStart = event.getStartTime().minus(longest);
+        for (int i = upperBound(earliestOverlapStart, LocalDateTime.MAX); i < events.size(); i++) {
+            Event existing = events.get(i);
+            if (!existing.getStartTime().isBefore(event.getEndTime())) {
+                break;
+            }
+            if (existing.getEndTime().isAfter(event.getStartTime())) {
+                return existing;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Inserts an event at its sorted position, after any events with the same start and end.
+     * @param event The event to insert
+     */
+    public void add(Event event) {
+        events.add(upperBound(event.getStartTime(), event.getEndTime()), event);
+        Duration duration = Duration.between(event.getStartTime(), event.getEndTime());
+        if (duration.compareTo(longest) > 0) {
+            longest = duration;
+        }
+    }
+
+    /**
+     * Removes an event from this day.
+     * @param event The event to remove
+     * @return true if the event was present
+     */
+    public boolean remove(Event event) {
+        for (int i = lowerBound(event.getStartTime()); i < events.size(); i++) {
+            Event existing = events.get(i);
+            if (!existing.getStartTime().equals(event.getStartTime())) {
+                break;
+            }
+            if (existing == event) {
+                events.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a copy of this day's events in chronological order.
+     * @return The events starting on this day
+     */
+    public ArrayList<Event> events() {
+        long stamp = lock.tryOptimisticRead();
+        Object[] snapshot = events.toArray();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                snapshot = events.toArray();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        ArrayList<Event> copy = new ArrayList<>(snapshot.length);
+        for (Object event : snapshot) {
+            copy.add((Event) event);
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the number of events on this day.
+     * @return the event count
+     */
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int size = events.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                size = events.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Index of the first event starting at or after the given time.
+     */
+    private int lowerBound(LocalDateTime start) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (events.get(mid).getStartTime().isBefore(start)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the first event ordered after the given start and end times.
+     */
+    private int upperBound(LocalDateTime start, LocalDateTime end) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Event event = events.get(mid);
+            int cmp = event.getStartTime().compareTo(start);
+            if (cmp < 0 || (cmp == 0 && event.getEndTime().compareTo(end) <= 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
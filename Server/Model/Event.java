@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
  * Contains details about the event's name, time, location, associated module, type, and lecturer.
  */
 public class Event {
+    private long id; // Server-assigned identifier, 0 until the event is stored
     private String name;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
@@ -38,6 +39,18 @@ public class Event {
 
     // Getters and Setters
 
+    /**
+     * Gets the server-assigned identifier of the event.
+     * @return the event id, or 0 if none has been assigned
+     */
+    public long getId() { return id; }
+
+    /**
+     * Sets the identifier of the event.
+     * @param id the new event id
+     */
+    public void setId(long id) { this.id = id; }
+
     /**
      * Gets the name of the event.
      * @return the event name
@@ -132,11 +145,11 @@ public class Event {
 
     /**
      * Returns a formatted string representation of the event.
-     * @return a string in the format: "Event: [name], Date: [date], Time: [start]-[end], Module: [module], Location: [location], Type: [type], Lecturer: [lecturer]"
+     * @return a string in the format: "Event: [name], Date: [date], Time: [start]-[end], Module: [module], Location: [location], Type: [type], Lecturer: [lecturer], ID: [id]"
      */
     @Override
     public String toString() {
-        return String.format("Event: %s, Date: %s, Time: %s - %s, Module: %s, Location: %s, Type: %s, Lecturer: %s",
-                name, getDate(), startTime.toLocalTime(), endTime.toLocalTime(), module, location, type, lecturer);
+        return String.format("Event: %s, Date: %s, Time: %s - %s, Module: %s, Location: %s, Type: %s, Lecturer: %s, ID: %d",
+                name, getDate(), startTime.toLocalTime(), endTime.toLocalTime(), module, location, type, lecturer, id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package Server.Model;
+
+/**
+ * A committed change to the event list: an event added or an event removed, with the version
+ * of the event list that the change produced.
+ */
+public class EventChange {
+    /**
+     * The kind of change.
+     */
+    public enum Type { ADD, REMOVE }
+
+    private final Type type;
+    private final Event event;
+    private final long version;
+
+    /**
+     * Constructs an EventChange.
+     *
+     * @param type Whether the event was added or removed.
+     * @param event The event concerned.
+     * @param version The version of the event list once the change is applied.
+     */
+    public EventChange(Type type, Event event, long version) {
+        this.type = type;
+        this.event = event;
+        this.version = version;
+    }
+
+    /**
+     * Gets the kind of change.
+     * @return ADD or REMOVE
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Gets the event that was added or removed.
+     * @return the event
+     */
+    public Event getEvent() { return event; }
+
+    /**
+     * Gets the version of the event list once the change is applied.
+     * @return the version
+     */
+    public long getVersion() { return version; }
+}
@@ -0,0 +1,82 @@
+package Server.Model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Position in the event list after which the next page of a paged load starts.
+ * The cursor is the sort key of the last event already sent: start time, end time and id, which
+ * together give every event a unique place in page order. It holds no server-side state, so a
+ * page can be fetched on any connection, and a change between pages only means the client sees
+ * events added ahead of the cursor by push rather than in a page.
+ *
+ * On the wire a cursor is &lt;start minute&gt;:&lt;end minute&gt;:&lt;id&gt;, with the times in
+ * minutes since the epoch (UTC).
+ */
+public class EventCursor {
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+    private final long id;
+
+    private EventCursor(LocalDateTime startTime, LocalDateTime endTime, long id) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.id = id;
+    }
+
+    /**
+     * Creates the cursor for the page that continues after an event.
+     * @param event The last event of the current page
+     * @return the cursor following the event
+     */
+    public static EventCursor after(Event event) {
+        return new EventCursor(event.getStartTime(), event.getEndTime(), event.getId());
+    }
+
+    /**
+     * Parses a cursor sent by a client.
+     * @param text The cursor's wire form
+     * @return the cursor
+     * @throws IllegalArgumentException if the text is not a cursor
+     */
+    public static EventCursor parse(String text) {
+        String[] parts = text.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid cursor: " + text);
+        }
+        return new EventCursor(fromEpochMinute(Long.parseLong(parts[0])),
+                fromEpochMinute(Long.parseLong(parts[1])), Long.parseLong(parts[2]));
+    }
+
+    /**
+     * Gets the start time of the event the cursor follows, whose day is the first one a page can draw from.
+     * @return the start time
+     */
+    public LocalDateTime getStartTime() { return startTime; }
+
+    /**
+     * Checks whether an event comes after the cursor in page order: chronological, then by id.
+     * @param event The event to check
+     * @return true if the event belongs on a page that starts at this cursor
+     */
+    public boolean precedes(Event event) {
+        int cmp = startTime.compareTo(event.getStartTime());
+        if (cmp == 0) {
+            cmp = endTime.compareTo(event.getEndTime());
+        }
+        return cmp < 0 || (cmp == 0 && id < event.getId());
+    }
+
+    @Override
+    public String toString() {
+        return toEpochMinute(startTime) + ":" + toEpochMinute(endTime) + ":" + id;
+    }
+
+    private static long toEpochMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromEpochMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
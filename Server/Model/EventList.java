@@ -3,28 +3,82 @@ package Server.Model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Manages a collection of events with conflict detection and filtering capabilities.
  * Provides methods to add, remove, and query events based on various criteria.
+ * Events are stored by start date in sorted per-day schedules, so conflict checks
+ * and date or date-range lookups only touch the days concerned.
+ * Case-insensitive hash indexes on module, lecturer, location and type make
+ * lookups by those fields proportional to the number of matches.
+ * Every stored event carries a unique id, which is indexed for constant-time lookup and removal.
+ *
+ * The list is safe for concurrent use by the client handler threads. Each day is a lock stripe:
+ * writers lock only the day an event starts on, so the conflict check and insert are atomic and
+ * two clients can never double-book a slot, while readers never block each other.
  */
 public class EventList {
-    private static ArrayList<Event> eventList = new ArrayList<>();
+    /** Chronological order: by start time, then end time */
+    public static final Comparator<Event> CHRONOLOGICAL =
+            Comparator.comparing(Event::getStartTime).thenComparing(Event::getEndTime);
+    /** Page order: chronological, then by id, so that every event has a unique position */
+    public static final Comparator<Event> PAGE_ORDER = CHRONOLOGICAL.thenComparingLong(Event::getId);
+
+    private static volatile ConcurrentNavigableMap<LocalDate, DaySchedule> days = new ConcurrentSkipListMap<>();
+    private static final FieldIndex byModule = new FieldIndex();
+    private static final FieldIndex byLecturer = new FieldIndex();
+    private static final FieldIndex byLocation = new FieldIndex();
+    private static final FieldIndex byType = new FieldIndex();
+    private static final ConcurrentHashMap<Long, Event> byId = new ConcurrentHashMap<>();
+    private static final AtomicLong nextId = new AtomicLong(1);
+    private static final AtomicLong revision = new AtomicLong(); // Bumped after every change
 
     /**
      * Adds an event to the list after checking for time conflicts on the same date.
+     * An event without an id is assigned the next free one.
      * @param event The event to be added
      * @throws IllegalArgumentException if there's a time overlap with existing events
      */
     public void add(Event event) {
-        ArrayList<Event> eventsOnSameDate = alleventsondate(event.getStartTime().toLocalDate());
-        for (Event existingEvent : eventsOnSameDate) {
-            if (event.getStartTime().isBefore(existingEvent.getEndTime()) &&
-                event.getEndTime().isAfter(existingEvent.getStartTime())) {
+        add(event, added -> null);
+    }
+
+    /**
+     * Adds an event as add does, running an action once the event has passed the conflict check
+     * and has its id, but before any other thread can see it. Whatever the action does therefore
+     * happens before anything another thread does with the event, such as removing it.
+     * @param event The event to be added
+     * @param beforeVisible The action, run with the event's day locked; it must not use the list
+     * @return the action's result
+     * @throws IllegalArgumentException if there's a time overlap with existing events
+     */
+    public <T> T add(Event event, Function<Event, T> beforeVisible) {
+        DaySchedule day = days.computeIfAbsent(event.getStartTime().toLocalDate(), d -> new DaySchedule());
+        StampedLock lock = day.getLock();
+        long stamp = lock.writeLock();
+        try {
+            Event existingEvent = day.findConflict(event);
+            if (existingEvent != null) {
                 throw new IllegalArgumentException("Event time conflict with: " + existingEvent);
             }
+            assignId(event);
+            T result = beforeVisible.apply(event);
+            day.add(event);
+            index(event);
+            revision.incrementAndGet();
+            return result;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        eventList.add(event);
     }
 
     /**
@@ -33,25 +87,147 @@ public class EventList {
      * @throws IllegalArgumentException if the event is not found in the list
      */
     public void remove(Event event) {
-        if (!eventList.remove(event)) {
+        // Emptied days are left in place, so a writer never inserts into a day another thread just dropped
+        DaySchedule day = days.get(event.getStartTime().toLocalDate());
+        if (day == null) {
             throw new IllegalArgumentException("Event not found: " + event);
         }
+        StampedLock lock = day.getLock();
+        long stamp = lock.writeLock();
+        try {
+            if (!day.remove(event)) {
+                throw new IllegalArgumentException("Event not found: " + event);
+            }
+            unindex(event);
+            revision.incrementAndGet();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
-     * Returns the underlying ArrayList of events.
+     * Retrieves an event by its id.
+     * @param id The id of the event
+     * @return The event with that id, or null if there is none
+     */
+    public Event findById(long id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Removes the event with the given id from the list.
+     * @param id The id of the event to be removed
+     * @return The removed event
+     * @throws IllegalArgumentException if no event has that id
+     */
+    public Event removeById(long id) {
+        Event event = byId.get(id);
+        if (event == null) {
+            throw new IllegalArgumentException("Event not found: " + id);
+        }
+        remove(event);
+        return event;
+    }
+
+    /**
+     * Returns all events as a new ArrayList, in chronological order.
      * @return A list containing all events
      */
     public ArrayList<Event> arrayList() {
-        return eventList;
+        ArrayList<Event> events = new ArrayList<>();
+        for (DaySchedule day : days.values()) {
+            events.addAll(day.events());
+        }
+        return events;
+    }
+
+    /**
+     * Passes every event to an action in chronological order, without building a list of them all.
+     * @param action The action to perform on each event
+     */
+    public void forEach(Consumer<? super Event> action) {
+        for (DaySchedule day : days.values()) {
+            day.events().forEach(action);
+        }
+    }
+
+    /**
+     * Checks whether the list holds any events.
+     * @return true if there are no events
+     */
+    public boolean isEmpty() {
+        return byId.isEmpty();
     }
 
     /**
      * Replaces the current list of events with a new collection.
+     * This is meant for loading at startup and must not run concurrently with other operations.
      * @param events The new list of events to use
      */
     public void setArrayList(ArrayList<Event> events) {
-        eventList = events;
+        ConcurrentNavigableMap<LocalDate, DaySchedule> byDate = new ConcurrentSkipListMap<>();
+        for (Event event : events) {
+            byDate.computeIfAbsent(event.getStartTime().toLocalDate(), d -> new DaySchedule()).add(event);
+        }
+        days = byDate;
+        byModule.clear();
+        byLecturer.clear();
+        byLocation.clear();
+        byType.clear();
+        byId.clear();
+        for (Event event : events) {
+            if (event.getId() != 0) {
+                assignId(event); // Reserve existing ids before handing out new ones
+            }
+        }
+        for (Event event : events) {
+            assignId(event);
+            index(event);
+        }
+        revision.incrementAndGet();
+    }
+
+    /**
+     * Gets a counter that changes whenever the list does, including for changes that are later
+     * rolled back. It is bumped after each change is in place, so anything built from the list
+     * after reading a revision reflects at least that revision.
+     * @return the current revision
+     */
+    public long getRevision() {
+        return revision.get();
+    }
+
+    /**
+     * Gives an event the next free id if it has none, and keeps later ids above any it already has.
+     */
+    private void assignId(Event event) {
+        if (event.getId() == 0) {
+            event.setId(nextId.getAndIncrement());
+        } else {
+            nextId.accumulateAndGet(event.getId() + 1, Math::max);
+        }
+    }
+
+    /**
+     * Adds an event to the id and secondary field indexes.
+     */
+    private void index(Event event) {
+        byId.put(event.getId(), event);
+        byModule.add(event.getModule(), event);
+        byLecturer.add(event.getLecturer(), event);
+        byLocation.add(event.getLocation(), event);
+        byType.add(event.getType(), event);
+    }
+
+    /**
+     * Removes an event from the id and secondary field indexes.
+     */
+    private void unindex(Event event) {
+        byId.remove(event.getId());
+        byModule.remove(event.getModule(), event);
+        byLecturer.remove(event.getLecturer(), event);
+        byLocation.remove(event.getLocation(), event);
+        byType.remove(event.getType(), event);
     }
 
     /**
@@ -60,15 +236,63 @@ public class EventList {
      * @return A list of events occurring on the specified date
      */
     public ArrayList<Event> alleventsondate(LocalDate date) {
+        DaySchedule day = days.get(date);
+        return day == null ? new ArrayList<>() : day.events();
+    }
+
+    /**
+     * Retrieves all events occurring between two dates, inclusive, in chronological order.
+     * @param from The first date of the range
+     * @param to The last date of the range
+     * @return A list of events occurring within the range
+     */
+    public ArrayList<Event> alleventsbetween(LocalDate from, LocalDate to) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getStartTime().toLocalDate().equals(date)) {
-                events.add(event);
-            }
+        for (DaySchedule day : days.subMap(from, true, to, true).values()) {
+            events.addAll(day.events());
         }
         return events;
     }
 
+    /**
+     * Retrieves one page of events in page order, for clients that load the list piece by piece.
+     * Only the days from the cursor onwards are visited, so each page costs the same however far
+     * into the list it starts.
+     * @param after The cursor the page starts after, or null for the first page
+     * @param from The first date of the window, or null for no lower bound
+     * @param to The last date of the window, or null for no upper bound
+     * @param limit The most events to return
+     * @return Up to limit events following the cursor within the window
+     */
+    public ArrayList<Event> page(EventCursor after, LocalDate from, LocalDate to, int limit) {
+        NavigableMap<LocalDate, DaySchedule> window = days;
+        LocalDate first = after == null ? from : after.getStartTime().toLocalDate();
+        if (from != null && first.isBefore(from)) {
+            first = from;
+        }
+        if (first != null) {
+            window = window.tailMap(first, true);
+        }
+        if (to != null) {
+            window = window.headMap(to, true);
+        }
+        ArrayList<Event> page = new ArrayList<>();
+        for (DaySchedule day : window.values()) {
+            ArrayList<Event> events = day.events();
+            events.sort(PAGE_ORDER); // Already chronological; this only orders events with equal times
+            for (Event event : events) {
+                if (after != null && !after.precedes(event)) {
+                    continue;
+                }
+                page.add(event);
+                if (page.size() == limit) {
+                    return page;
+                }
+            }
+        }
+        return page;
+    }
+
     /**
      * Filters events by name (case-insensitive).
      * @param name The name to search for
@@ -76,9 +300,11 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithname(String name) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getName().equalsIgnoreCase(name)) {
-                events.add(event);
+        for (DaySchedule day : days.values()) {
+            for (Event event : day.events()) {
+                if (event.getName().equalsIgnoreCase(name)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -91,9 +317,12 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithstarttime(LocalDateTime startTime) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getStartTime().equals(startTime)) {
-                events.add(event);
+        DaySchedule day = days.get(startTime.toLocalDate());
+        if (day != null) {
+            for (Event event : day.events()) {
+                if (event.getStartTime().equals(startTime)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -106,9 +335,11 @@ public class EventList {
      */
     public ArrayList<Event> alleventswithendtime(LocalDateTime endTime) {
         ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getEndTime().equals(endTime)) {
-                events.add(event);
+        for (DaySchedule day : days.values()) {
+            for (Event event : day.events()) {
+                if (event.getEndTime().equals(endTime)) {
+                    events.add(event);
+                }
             }
         }
         return events;
@@ -120,13 +351,7 @@ public class EventList {
      * @return A list of events at the specified location
      */
     public ArrayList<Event> alleventswithlocation(String location) {
-        ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getLocation().equalsIgnoreCase(location)) {
-                events.add(event);
-            }
-        }
-        return events;
+        return sortList(byLocation.get(location));
     }
 
     /**
@@ -135,13 +360,7 @@ public class EventList {
      * @return A list of events associated with the specified module
      */
     public ArrayList<Event> alleventswithmodule(String module) {
-        ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getModule().equalsIgnoreCase(module)) {
-                events.add(event);
-            }
-        }
-        return events;
+        return sortList(byModule.get(module));
     }
 
     /**
@@ -150,13 +369,7 @@ public class EventList {
      * @return A list of events of the specified type
      */
     public ArrayList<Event> alleventswithtype(String type) {
-        ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getType().equalsIgnoreCase(type)) {
-                events.add(event);
-            }
-        }
-        return events;
+        return sortList(byType.get(type));
     }
 
     /**
@@ -165,36 +378,18 @@ public class EventList {
      * @return A list of events taught by the specified lecturer
      */
     public ArrayList<Event> alleventswithlecturer(String lecturer) {
-        ArrayList<Event> events = new ArrayList<>();
-        for (Event event : eventList) {
-            if (event.getLecturer().equalsIgnoreCase(lecturer)) {
-                events.add(event);
-            }
-        }
-        return events;
+        return sortList(byLecturer.get(lecturer));
     }
 
     /**
      * Sorts a list of events chronologically by start time, using end time as a tiebreaker.
+     * The list itself keeps its events in this order already; this is for arbitrary lists.
      * @param events The list of events to sort
      * @return A new sorted list in chronological order
      */
     public static ArrayList<Event> sortList(ArrayList<Event> events) {
-        ArrayList<Event> unsorted = new ArrayList<>(events);
-        ArrayList<Event> sorted = new ArrayList<>();
-        
-        while (!unsorted.isEmpty()) {
-            int earliestIndex = 0;
-            for (int i = 1; i < unsorted.size(); i++) {
-                Event current = unsorted.get(i);
-                Event earliest = unsorted.get(earliestIndex);
-                int cmp = current.getStartTime().compareTo(earliest.getStartTime());
-                if (cmp < 0 || (cmp == 0 && current.getEndTime().compareTo(earliest.getEndTime()) < 0)) {
-                    earliestIndex = i;
-                }
-            }
-            sorted.add(unsorted.remove(earliestIndex));
-        }
+        ArrayList<Event> sorted = new ArrayList<>(events);
+        sorted.sort(CHRONOLOGICAL);
         return sorted;
     }
 }
\ No newline at end of file
@@ -1,13 +1,29 @@
 package Server.Model;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Handles saving and loading of event data to and from a CSV file.
+ * Handles saving and loading of event data.
+ * Startup state comes from a binary snapshot plus an append-only journal of the mutations made
+ * since it, while the CSV file is kept as an import/export format.
  */
 public class EventListSaver {
+    private static final String ADD_RECORD = "ADD";
+    private static final String REMOVE_RECORD = "REMOVE";
+    private static final String CHECKPOINT_RECORD = "CHECKPOINT";
+
+    private volatile JournalWriter journal; // Group-commit journal writer, null until openJournal is called
+    private final ReentrantLock journalLock = new ReentrantLock(); // Guards opening and closing the journal; unlike a monitor it never pins a virtual thread
 
     /**
      * Loads events from a CSV file.
@@ -18,29 +34,200 @@ public class EventListSaver {
      */
     public ArrayList<Event> load(String filePath) throws IOException {
         ArrayList<Event> events = new ArrayList<>();
+        FieldReader parts = new FieldReader(',');
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue; // Skip empty lines
-                // CSV columns: name, startTime, endTime, location, module, type, lecturer
-                String[] parts = line.split(",");
-                if (parts.length < 7) continue; // Ensure all fields are present
-                String name = parts[0].trim();
-                LocalDateTime startTime = LocalDateTime.parse(parts[1].trim());
-                LocalDateTime endTime = LocalDateTime.parse(parts[2].trim());
-                String location = parts[3].trim();
-                String module = parts[4].trim();
-                String type = parts[5].trim();
-                String lecturer = parts[6].trim();
-                
-                events.add(new Event(name, startTime, endTime, location, module, type, lecturer));
+                if (line.isBlank()) continue; // Skip empty lines
+                // CSV columns: name, startTime, endTime, location, module, type, lecturer[, id]
+                parts.reset(line);
+                if (parts.count() < 7) continue; // Ensure all fields are present
+                events.add(parseEvent(parts, 0));
             }
         }
         return events;
     }
+
+    /**
+     * Restores the server's events on startup. The binary snapshot is loaded as the base and the
+     * journal of changes made since that snapshot is replayed on top of it. When neither exists
+     * yet, the events are imported from the CSV file instead, and with no CSV file either the
+     * server starts empty.
+     *
+     * @param snapshotPath The path to the binary snapshot file.
+     * @param journalPath The path to the journal file.
+     * @param csvPath The path to the CSV file to import on first start.
+     * @return The restored list of events.
+     * @throws IOException If a file exists but cannot be read, in which case none of them may be overwritten.
+     */
+    public ArrayList<Event> recover(String snapshotPath, String journalPath, String csvPath) throws IOException {
+        boolean hasSnapshot = Files.exists(Paths.get(snapshotPath));
+        boolean hasJournal = Files.exists(Paths.get(journalPath));
+        if (!hasSnapshot && !hasJournal) {
+            return Files.exists(Paths.get(csvPath)) ? load(csvPath) : new ArrayList<>();
+        }
+        ArrayList<Event> events = new ArrayList<>();
+        long checkpointId = -1;
+        if (hasSnapshot) {
+            EventSnapshot snapshot = EventSnapshot.read(snapshotPath);
+            events = snapshot.getEvents();
+            checkpointId = snapshot.getCheckpointId();
+        }
+        if (hasJournal) {
+            events = replay(events, journalPath, checkpointId);
+        }
+        return events;
+    }
+
+    /**
+     * Replays the ADD and REMOVE records of a journal onto a snapshot's events.
+     * A journal starting with a different checkpoint than the snapshot was already folded into it
+     * and is ignored; a journal without a checkpoint header holds the full history on its own.
+     * Malformed records, such as a line torn by a crash mid-write, are skipped.
+     *
+     * @param events The events from the snapshot.
+     * @param journalPath The path to the journal file.
+     * @param checkpointId The checkpoint identifier of the snapshot.
+     * @return The list of events after the journal has been applied.
+     * @throws IOException If an error occurs while reading the journal.
+     */
+    public ArrayList<Event> replay(ArrayList<Event> events, String journalPath, long checkpointId) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(journalPath))) {
+            String line = reader.readLine();
+            if (line == null) return events;
+            if (line.startsWith(CHECKPOINT_RECORD + ",")) {
+                if (Long.parseLong(line.substring(CHECKPOINT_RECORD.length() + 1).trim()) != checkpointId) {
+                    return events;
+                }
+                line = reader.readLine();
+            } else {
+                events = new ArrayList<>();
+            }
+            HashMap<Long, Event> byId = new HashMap<>();
+            for (Event event : events) {
+                byId.put(event.getId(), event);
+            }
+            HashSet<Event> removed = new HashSet<>();
+            FieldReader parts = new FieldReader(',');
+            for (; line != null; line = reader.readLine()) {
+                parts.reset(line);
+                try {
+                    if (parts.count() >= 8 && parts.is(0, ADD_RECORD)) {
+                        Event event = parseEvent(parts, 1);
+                        events.add(event);
+                        byId.put(event.getId(), event);
+                    } else if (parts.count() == 2 && parts.is(0, REMOVE_RECORD)) {
+                        Event event = byId.remove(parts.parseLong(1));
+                        if (event != null) {
+                            removed.add(event);
+                        }
+                    } else if (parts.count() >= 3 && parts.is(0, REMOVE_RECORD)) {
+                        // Records written before events had ids identify the event by name and start time
+                        String name = parts.text(1);
+                        LocalDateTime startTime = parts.isoDateTime(2);
+                        for (int i = 0; i < events.size(); i++) {
+                            Event event = events.get(i);
+                            if (event.getStartTime().equals(startTime) && event.getName().equalsIgnoreCase(name)) {
+                                events.remove(i);
+                                break;
+                            }
+                        }
+                    } else if (!line.isBlank()) {
+                        System.err.println("Skipping unknown journal record: " + line);
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping unreadable journal record: " + line);
+                }
+            }
+            events.removeIf(removed::contains);
+        }
+        return events;
+    }
+
+    /**
+     * Checkpoints the current events and opens a fresh journal for appending. The events are
+     * written to a new binary snapshot, and the journal restarts empty under the snapshot's
+     * checkpoint identifier, so the next startup only replays changes made after this point.
+     * The old journal is only replaced once the new snapshot is durable, and the new journal is
+     * durable before it is appended to, so a power loss at any point leaves a snapshot and a
+     * journal that together hold every committed change.
+     *
+     * @param events The events currently held by the server.
+     * @param snapshotPath The path to the binary snapshot file.
+     * @param journalPath The path to the journal file.
+     * @throws IOException If an error occurs while writing the snapshot or journal.
+     */
+    public void openJournal(ArrayList<Event> events, String snapshotPath, String journalPath) throws IOException {
+        journalLock.lock();
+        try {
+            closeJournal();
+            long checkpointId = System.currentTimeMillis();
+            new EventSnapshot(events, checkpointId).write(snapshotPath);
+
+            Path journalFile = Paths.get(journalPath);
+            Path tempFile = Paths.get(journalPath + ".tmp");
+            try (FileOutputStream file = new FileOutputStream(tempFile.toFile());
+                    BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(file))) {
+                writer.write(CHECKPOINT_RECORD + "," + checkpointId);
+                writer.newLine();
+                writer.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            EventSnapshot.syncDirectory(journalFile);
+            journal = JournalWriter.open(journalPath);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Queues an ADD record for an event in the journal's next group commit.
+     *
+     * @param event The event that was added.
+     * @return A future completed once the record is durable, or completed exceptionally if the write fails.
+     */
+    public CompletableFuture<Void> appendAdd(Event event) {
+        return appendRecord(ADD_RECORD + "," + toCsvLine(event));
+    }
+
+    /**
+     * Queues a REMOVE record for an event in the journal's next group commit.
+     *
+     * @param event The event that was removed.
+     * @return A future completed once the record is durable, or completed exceptionally if the write fails.
+     */
+    public CompletableFuture<Void> appendRemove(Event event) {
+        return appendRecord(REMOVE_RECORD + "," + event.getId());
+    }
+
+    /**
+     * Closes the journal if it is open.
+     *
+     * @throws IOException If an error occurs while closing the journal.
+     */
+    public void closeJournal() throws IOException {
+        journalLock.lock();
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> appendRecord(String record) {
+        JournalWriter writer = journal;
+        if (writer == null) {
+            return CompletableFuture.failedFuture(new IOException("Journal is not open"));
+        }
+        return writer.append(record);
+    }
     
     /**
-     * Saves a list of events to a CSV file.
+     * Saves a list of events to a CSV file. Used to export the current state.
      *
      * @param events The list of events to save.
      * @param filePath The path to the CSV file.
@@ -49,19 +236,48 @@ public class EventListSaver {
     public void save(ArrayList<Event> events, String filePath) throws IOException {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
             for (Event event : events) {
-                String line = String.join(",",
-                        event.getName(),
-                        event.getStartTime().toString(),
-                        event.getEndTime().toString(),
-                        event.getLocation(),
-                        event.getModule(),
-                        event.getType(),
-                        event.getLecturer());
-                writer.write(line);
+                writer.write(toCsvLine(event));
                 writer.newLine();
             }
         }
     }
+
+    /**
+     * Formats an event as a CSV row, as used by the CSV file, the journal and LOAD_CSV responses.
+     * Columns: name, startTime, endTime, location, module, type, lecturer, id
+     *
+     * @param event The event to format.
+     * @return The CSV row, without a line terminator.
+     */
+    public static String toCsvLine(Event event) {
+        return String.join(",",
+                event.getName(),
+                event.getStartTime().toString(),
+                event.getEndTime().toString(),
+                event.getLocation(),
+                event.getModule(),
+                event.getType(),
+                event.getLecturer(),
+                String.valueOf(event.getId()));
+    }
+
+    /**
+     * Builds an event from CSV columns starting at the given offset.
+     */
+    private static Event parseEvent(FieldReader parts, int offset) {
+        String name = parts.text(offset);
+        LocalDateTime startTime = parts.isoDateTime(offset + 1);
+        LocalDateTime endTime = parts.isoDateTime(offset + 2);
+        String location = parts.text(offset + 3);
+        String module = parts.text(offset + 4);
+        String type = parts.text(offset + 5);
+        String lecturer = parts.text(offset + 6);
+        Event event = new Event(name, startTime, endTime, location, module, type, lecturer);
+        if (parts.count() > offset + 7) {
+            event.setId(parts.parseLong(offset + 7));
+        }
+        return event;
+    }
     
     /**
      * Main method for testing event saving functionality.
@@ -0,0 +1,45 @@
+package Server.Model;
+
+import java.util.ArrayList;
+
+/**
+ * One page of a paged load: the events, the cursor of the page after it, and the version of the
+ * event list when the page was read.
+ */
+public class EventPage {
+    private final ArrayList<Event> events;
+    private final String next;
+    private final long version;
+
+    /**
+     * Constructs an EventPage.
+     *
+     * @param events The events on the page, in page order.
+     * @param next The cursor of the following page, or null if this is the last.
+     * @param version The version of the event list when the page was read.
+     */
+    public EventPage(ArrayList<Event> events, String next, long version) {
+        this.events = events;
+        this.next = next;
+        this.version = version;
+    }
+
+    /**
+     * Gets the events on the page.
+     * @return the events, in page order
+     */
+    public ArrayList<Event> getEvents() { return events; }
+
+    /**
+     * Gets the cursor of the following page.
+     * @return the cursor, or null if this is the last page
+     */
+    public String getNext() { return next; }
+
+    /**
+     * Gets the version of the event list when the page was read. A client loading page by page
+     * has every change up to the first page's version once it has read the last page.
+     * @return the version
+     */
+    public long getVersion() { return version; }
+}
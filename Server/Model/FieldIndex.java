@@ -0,0 +1,64 @@
+package Server.Model;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash index from a normalised, case-insensitive field value to the events carrying it.
+ * Keys are folded to upper and then lower case, mirroring how equalsIgnoreCase compares
+ * characters. Updates are atomic per key, so the index is safe for concurrent use;
+ * lookups return events in no particular order.
+ */
+public class FieldIndex {
+    private final ConcurrentHashMap<String, Set<Event>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes an event under a field value.
+     * @param value The event's value for the indexed field
+     * @param event The event to index
+     */
+    public void add(String value, Event event) {
+        entries.compute(normalise(value), (k, events) -> {
+            if (events == null) {
+                events = ConcurrentHashMap.newKeySet();
+            }
+            events.add(event);
+            return events;
+        });
+    }
+
+    /**
+     * Removes an event from the index.
+     * @param value The event's value for the indexed field
+     * @param event The event to remove
+     */
+    public void remove(String value, Event event) {
+        entries.computeIfPresent(normalise(value), (k, events) -> {
+            events.remove(event);
+            return events.isEmpty() ? null : events;
+        });
+    }
+
+    /**
+     * Retrieves the events indexed under a value, ignoring case.
+     * @param value The value to look up
+     * @return A new list of the matching events
+     */
+    public ArrayList<Event> get(String value) {
+        Set<Event> events = entries.get(normalise(value));
+        return events == null ? new ArrayList<>() : new ArrayList<>(events);
+    }
+
+    /**
+     * Removes every entry from the index.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static String normalise(String value) {
+        return value.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+}
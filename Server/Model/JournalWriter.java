@@ -0,0 +1,154 @@
+package Server.Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Group-commit writer for the event journal.
+ * Records submitted by any number of client handlers are queued and written by a single
+ * persistence thread, which drains everything pending, appends it in one write and forces
+ * it to disk with one fsync before completing the waiting futures.
+ */
+public class JournalWriter implements Runnable {
+    /** Marker queued by close() to stop the persistence thread after pending records */
+    private static final PendingRecord CLOSE = new PendingRecord(null);
+
+    private final FileChannel channel;
+    private final BlockingQueue<PendingRecord> pending = new LinkedBlockingQueue<>();
+    private Thread thread; // Set by open before the writer is handed out
+    private boolean closed; // Guarded by closeLock
+    // Appends share the read lock; close takes the write lock, so no record is queued behind CLOSE
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    private JournalWriter(String journalPath) throws IOException {
+        channel = FileChannel.open(Paths.get(journalPath),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Opens the journal file for appending and starts the persistence thread. The thread is
+     * started only once the writer is fully constructed.
+     *
+     * @param journalPath The path to the journal file.
+     * @return The running writer.
+     * @throws IOException If the journal cannot be opened.
+     */
+    public static JournalWriter open(String journalPath) throws IOException {
+        JournalWriter writer = new JournalWriter(journalPath);
+        writer.thread = new Thread(writer, "journal-writer");
+        writer.thread.setDaemon(true);
+        writer.thread.start();
+        return writer;
+    }
+
+    /**
+     * Queues a record for the next group commit.
+     *
+     * @param record The journal line to append, without a line terminator.
+     * @return A future completed once the record is durable on disk.
+     */
+    public CompletableFuture<Void> append(String record) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IOException("Journal is closed"));
+            }
+            PendingRecord entry = new PendingRecord(record);
+            pending.add(entry);
+            return entry.done;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Commits any queued records, then stops the persistence thread and closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    public void close() throws IOException {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+            pending.add(CLOSE);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Persistence loop: waits for at least one record, then commits the whole backlog together.
+     */
+    @Override
+    public void run() {
+        ArrayList<PendingRecord> batch = new ArrayList<>();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            pending.drainTo(batch);
+            closing = batch.remove(CLOSE);
+            commit(batch);
+            batch.clear();
+        }
+        // Nothing is queued behind the close marker, but fail anything left if the thread was interrupted
+        pending.drainTo(batch);
+        for (PendingRecord entry : batch) {
+            if (entry != CLOSE) {
+                entry.done.completeExceptionally(new IOException("Journal is closed"));
+            }
+        }
+    }
+
+    private void commit(ArrayList<PendingRecord> batch) {
+        if (batch.isEmpty()) return;
+        StringBuilder lines = new StringBuilder();
+        for (PendingRecord entry : batch) {
+            lines.append(entry.record).append(System.lineSeparator());
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            for (PendingRecord entry : batch) {
+                entry.done.complete(null);
+            }
+        } catch (IOException e) {
+            for (PendingRecord entry : batch) {
+                entry.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * A journal line waiting to be committed, with the future its submitter waits on.
+     */
+    private static class PendingRecord {
+        private final String record;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        PendingRecord(String record) {
+            this.record = record;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package Server.View;
 
+import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -8,9 +9,23 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
 
-public class ServerStatusView {
+/**
+ * Optional JavaFX window showing that the server is running, with a button to stop it.
+ * The server runs without it; LectureSchedulerServer opens it only when given --gui.
+ */
+public class ServerStatusView extends Application {
     private Stage primaryStage;
 
+    /**
+     * Starts the JavaFX toolkit and shows the window. Blocks until the window is closed.
+     *
+     * @param args the command-line arguments, passed on to JavaFX
+     */
+    public static void launchWindow(String[] args) {
+        launch(ServerStatusView.class, args);
+    }
+
+    @Override
     public void start(Stage stage) {
         primaryStage = stage;
         